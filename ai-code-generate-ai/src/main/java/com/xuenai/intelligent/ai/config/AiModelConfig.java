@@ -3,6 +3,7 @@ package com.xuenai.intelligent.ai.config;
 
 import com.xuenai.intelligent.ai.config.properties.AiModelProperties;
 import com.xuenai.intelligent.ai.config.properties.GeminiModelProperties;
+import com.xuenai.intelligent.ai.stream.CancellableHttpClientBuilder;
 import com.xuenai.intelligent.monitor.listener.AiModelMonitorListener;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
@@ -98,6 +99,8 @@ public class AiModelConfig {
      */
     private OpenAiStreamingChatModel buildStreamingChatModel(ModelConfig config) {
         return OpenAiStreamingChatModel.builder()
+                // 支持客户端断开时中止模型 HTTP 流
+                .httpClientBuilder(new CancellableHttpClientBuilder())
                 .baseUrl(config.getBaseUrl())
                 .apiKey(config.getApiKey())
                 .modelName(config.getModelName())
@@ -0,0 +1,467 @@
+package com.xuenai.intelligent.ai.fs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.xuenai.aicodegenerate.constant.AppConstant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 工程项目的内存文件系统
+ * 每个项目目录维护一份内存快照（有序的 相对路径 -> 文件 索引，文件内容按需加载），工具的读取与目录列举直接走内存；
+ * 写入与删除先更新快照，再由后台虚拟线程异步刷盘。构建或下载项目前需调用 flush 确保全部落盘，
+ * 快照空闲一段时间后刷盘并淘汰。刷盘失败的修改保留在快照中等待重试，下一次写入或 flush 时抛出异常
+ */
+@Slf4j
+@Component
+public class ProjectFileSystem {
+
+    /**
+     * 不纳入快照的目录与文件，读取时直接访问磁盘
+     */
+    public static final Set<String> IGNORED_NAMES = Set.of("node_modules", ".git", "dist", "build", ".DS_Store", ".env", "target", ".mvn", ".idea", ".vscode", "coverage");
+
+    /**
+     * 不纳入快照的文件扩展名
+     */
+    public static final Set<String> IGNORED_EXTENSIONS = Set.of(".log", ".tmp", ".cache", ".lock");
+
+    /**
+     * 项目根目录 -> 快照
+     */
+    private final Cache<Path, ProjectSnapshot> snapshots = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            // 在淘汰的原子操作内同步刷盘，刷盘完成前同一项目不会从磁盘重新加载
+            .evictionListener((Path root, ProjectSnapshot snapshot, RemovalCause cause) -> {
+                if (snapshot != null) {
+                    retainOnFailure(root, snapshot);
+                }
+            })
+            .build();
+
+    /**
+     * 淘汰时刷盘失败的快照，再次访问时代替磁盘重新加载，未落盘的修改仍可读取并继续重试
+     */
+    private final Map<Path, ProjectSnapshot> unflushedSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 获取工程项目根目录
+     *
+     * @param appId 应用 ID
+     * @return 项目根目录
+     */
+    public static Path projectRoot(Long appId) {
+        return Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 将工具传入的路径解析为项目内的相对路径（使用 / 分隔）
+     *
+     * @param appId        应用 ID
+     * @param relativePath 工具传入的路径
+     * @return 相对路径，根目录为空字符串；超出项目目录时返回 null
+     */
+    public static String resolve(Long appId, String relativePath) {
+        Path root = projectRoot(appId);
+        Path path = Paths.get(relativePath == null ? "" : relativePath);
+        path = (path.isAbsolute() ? path : root.resolve(path)).normalize();
+        if (!path.startsWith(root)) {
+            return null;
+        }
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * 读取文件
+     *
+     * @return 文件内容，文件不存在时返回 null
+     */
+    public String read(Long appId, String path) throws IOException {
+        if (isIgnored(path)) {
+            Path file = projectRoot(appId).resolve(path);
+            return Files.isRegularFile(file) ? Files.readString(file) : null;
+        }
+        return snapshot(appId).read(path);
+    }
+
+    /**
+     * 写入文件，异步刷盘
+     */
+    public void write(Long appId, String path, String content) throws IOException {
+        if (isIgnored(path)) {
+            Path file = projectRoot(appId).resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+            return;
+        }
+        ProjectSnapshot snapshot = snapshot(appId);
+        snapshot.checkFlushed();
+        snapshot.write(path, content, null);
+    }
+
+    /**
+     * 批量写入文件，异步刷盘时整批先写入临时文件，全部成功后再逐个原子替换，任一失败则整批不落盘
+     *
+     * @param files 相对路径 -> 文件内容
+     */
+    public void writeAll(Long appId, Map<String, String> files) throws IOException {
+        ProjectSnapshot snapshot = snapshot(appId);
+        snapshot.checkFlushed();
+        Object batch = new Object();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (isIgnored(file.getKey())) {
+                Path target = projectRoot(appId).resolve(file.getKey());
+                Files.createDirectories(target.getParent());
+                Files.writeString(target, file.getValue());
+            } else {
+                snapshot.write(file.getKey(), file.getValue(), batch);
+            }
+        }
+    }
+
+    /**
+     * 删除文件，异步刷盘
+     *
+     * @return 文件是否存在
+     */
+    public boolean delete(Long appId, String path) throws IOException {
+        if (isIgnored(path)) {
+            return Files.deleteIfExists(projectRoot(appId).resolve(path));
+        }
+        ProjectSnapshot snapshot = snapshot(appId);
+        snapshot.checkFlushed();
+        return snapshot.delete(path);
+    }
+
+    /**
+     * 是否存在该文件
+     */
+    public boolean isFile(Long appId, String path) {
+        if (isIgnored(path)) {
+            return Files.isRegularFile(projectRoot(appId).resolve(path));
+        }
+        return snapshot(appId).files.containsKey(path);
+    }
+
+    /**
+     * 是否存在该目录（项目根目录始终存在）
+     */
+    public boolean isDirectory(Long appId, String dir) {
+        if (dir.isEmpty()) {
+            return Files.isDirectory(projectRoot(appId));
+        }
+        if (isIgnored(dir)) {
+            return Files.isDirectory(projectRoot(appId).resolve(dir));
+        }
+        String prefix = dir + "/";
+        String next = snapshot(appId).files.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    /**
+     * 列举目录下的所有文件（不含忽略的目录），按路径排序
+     *
+     * @param dir 相对目录，根目录为空字符串
+     * @return 相对于项目根目录的文件路径
+     */
+    public List<String> list(Long appId, String dir) {
+        NavigableMap<String, FileNode> files = snapshot(appId).files;
+        if (dir.isEmpty()) {
+            return new ArrayList<>(files.keySet());
+        }
+        String prefix = dir + "/";
+        // '0' 是 '/' 的下一个字符，[prefix, dir + "0") 恰好覆盖该目录下的所有路径
+        return new ArrayList<>(files.subMap(prefix, true, dir + "0", false).keySet());
+    }
+
+    /**
+     * 将项目的待写入内容全部刷盘
+     *
+     * @param projectDir 项目目录
+     * @throws IOException 有修改未能落盘
+     */
+    public void flush(String projectDir) throws IOException {
+        Path root = Paths.get(projectDir).toAbsolutePath().normalize();
+        ProjectSnapshot snapshot = snapshots.getIfPresent(root);
+        if (snapshot == null) {
+            snapshot = unflushedSnapshots.get(root);
+        }
+        if (snapshot != null) {
+            snapshot.flush();
+        }
+    }
+
+    /**
+     * 刷盘并淘汰快照，项目目录被外部修改（如构建生成文件）后调用
+     * 刷盘在移除的原子操作内完成；刷盘失败时保留快照，未落盘的修改不丢失
+     *
+     * @param projectDir 项目目录
+     */
+    public void evict(String projectDir) {
+        Path root = Paths.get(projectDir).toAbsolutePath().normalize();
+        snapshots.asMap().computeIfPresent(root, (key, snapshot) -> {
+            try {
+                snapshot.flush();
+                return null;
+            } catch (IOException e) {
+                log.error("项目快照刷盘失败，保留快照: {}, 错误: {}", key, e.getMessage());
+                return snapshot;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        snapshots.asMap().forEach(this::retainOnFailure);
+        unflushedSnapshots.forEach((root, snapshot) -> {
+            try {
+                snapshot.flush();
+            } catch (IOException e) {
+                log.error("停机时项目文件仍未能落盘: {}, 错误: {}", root, e.getMessage());
+            }
+        });
+    }
+
+    private ProjectSnapshot snapshot(Long appId) {
+        Path root = projectRoot(appId);
+        return snapshots.get(root, key -> {
+            ProjectSnapshot unflushed = unflushedSnapshots.remove(key);
+            return unflushed != null ? unflushed : ProjectSnapshot.load(key);
+        });
+    }
+
+    /**
+     * 刷盘即将移出缓存的快照，失败时暂存，避免未落盘的修改丢失
+     */
+    private void retainOnFailure(Path root, ProjectSnapshot snapshot) {
+        try {
+            snapshot.flush();
+        } catch (IOException e) {
+            log.error("淘汰的项目快照刷盘失败，暂存等待重试: {}, 错误: {}", root, e.getMessage());
+            unflushedSnapshots.put(root, snapshot);
+        }
+    }
+
+    private static boolean isIgnored(String path) {
+        for (String name : path.split("/")) {
+            if (IGNORED_NAMES.contains(name)) {
+                return true;
+            }
+        }
+        return IGNORED_EXTENSIONS.stream().anyMatch(path::endsWith);
+    }
+
+    /**
+     * 快照中的文件，content 为 null 表示尚未从磁盘加载（在待刷盘队列中表示删除）
+     *
+     * @param batch 所属的批量写入，同一批的修改一起落盘，单独写入时为 null
+     */
+    private record FileNode(String content, Object batch) {
+
+        FileNode(String content) {
+            this(content, null);
+        }
+    }
+
+    /**
+     * 单个项目的快照
+     */
+    private static class ProjectSnapshot {
+
+        private final Path root;
+
+        /**
+         * 有序的文件索引，目录列举直接按前缀截取
+         */
+        private final ConcurrentSkipListMap<String, FileNode> files = new ConcurrentSkipListMap<>();
+
+        /**
+         * 待刷盘的修改，值为 null 内容的 FileNode 表示删除
+         */
+        private final Map<String, FileNode> pending = new ConcurrentHashMap<>();
+
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        private final Object flushLock = new Object();
+
+        /**
+         * 最近一次刷盘的失败，成功刷盘后清除
+         */
+        private volatile IOException flushFailure;
+
+        private ProjectSnapshot(Path root) {
+            this.root = root;
+        }
+
+        static ProjectSnapshot load(Path root) {
+            ProjectSnapshot snapshot = new ProjectSnapshot(root);
+            if (!Files.isDirectory(root)) {
+                return snapshot;
+            }
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return !dir.equals(root) && IGNORED_NAMES.contains(dir.getFileName().toString())
+                                ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        String path = root.relativize(file).toString().replace('\\', '/');
+                        if (attrs.isRegularFile() && !isIgnored(path)) {
+                            snapshot.files.put(path, new FileNode(null));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("加载项目目录失败: " + root, e);
+            }
+            log.info("加载项目快照: {}，共 {} 个文件", root, snapshot.files.size());
+            return snapshot;
+        }
+
+        String read(String path) throws IOException {
+            FileNode node = files.get(path);
+            if (node == null) {
+                return null;
+            }
+            if (node.content() != null) {
+                return node.content();
+            }
+            String content = Files.readString(root.resolve(path));
+            // 读取期间文件可能已被写入或删除，只在仍未加载时回填
+            files.replace(path, node, new FileNode(content));
+            return content;
+        }
+
+        void write(String path, String content, Object batch) {
+            FileNode node = new FileNode(content, batch);
+            files.put(path, node);
+            pending.put(path, node);
+            scheduleFlush();
+        }
+
+        boolean delete(String path) {
+            if (files.remove(path) == null) {
+                return false;
+            }
+            pending.put(path, new FileNode(null));
+            scheduleFlush();
+            return true;
+        }
+
+        private void scheduleFlush() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                Thread.startVirtualThread(() -> {
+                    flushScheduled.set(false);
+                    try {
+                        flush();
+                    } catch (IOException e) {
+                        // 失败已记录，下一次写入或 flush 时重试并抛出
+                    }
+                });
+            }
+        }
+
+        /**
+         * 上一次刷盘失败时先同步重试，仍失败则抛出，避免工具继续报告写入成功
+         */
+        void checkFlushed() throws IOException {
+            if (flushFailure != null) {
+                flush();
+            }
+        }
+
+        /**
+         * 同步刷盘，正常返回时调用前的全部修改均已落盘；失败的修改保留在队列中等待重试
+         *
+         * @throws IOException 有修改未能落盘
+         */
+        void flush() throws IOException {
+            synchronized (flushLock) {
+                // 同一批量写入的修改分为一组，其余每个修改单独一组
+                Map<Object, Map<String, FileNode>> groups = new LinkedHashMap<>();
+                for (Map.Entry<String, FileNode> entry : pending.entrySet()) {
+                    Object group = entry.getValue().batch() == null ? entry.getKey() : entry.getValue().batch();
+                    groups.computeIfAbsent(group, key -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+                }
+                IOException failure = null;
+                for (Map<String, FileNode> group : groups.values()) {
+                    try {
+                        flushGroup(group);
+                        group.forEach(pending::remove);
+                    } catch (IOException e) {
+                        log.error("项目文件刷盘失败: {} {}, 错误: {}", root, group.keySet(), e.getMessage());
+                        if (failure == null) {
+                            failure = new IOException("项目文件未能写入磁盘: " + e.getMessage(), e);
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+                flushFailure = failure;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+
+        /**
+         * 一组修改先全部写入同目录下的临时文件，再逐个原子替换目标文件，写入失败时清理临时文件、不替换任何文件
+         */
+        private void flushGroup(Map<String, FileNode> group) throws IOException {
+            List<Path[]> staged = new ArrayList<>(group.size());
+            try {
+                for (Map.Entry<String, FileNode> entry : group.entrySet()) {
+                    if (entry.getValue().content() == null) {
+                        continue;
+                    }
+                    Path file = root.resolve(entry.getKey());
+                    Files.createDirectories(file.getParent());
+                    Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+                    staged.add(new Path[]{tempFile, file});
+                    Files.writeString(tempFile, entry.getValue().content(), StandardCharsets.UTF_8);
+                }
+                for (Path[] paths : staged) {
+                    Files.move(paths[0], paths[1], StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                for (Map.Entry<String, FileNode> entry : group.entrySet()) {
+                    if (entry.getValue().content() == null) {
+                        Files.deleteIfExists(root.resolve(entry.getKey()));
+                    }
+                }
+            } finally {
+                // 已替换的临时文件不再存在，这里只清理失败时残留的临时文件
+                for (Path[] paths : staged) {
+                    Files.deleteIfExists(paths[0]);
+                }
+            }
+        }
+    }
+}
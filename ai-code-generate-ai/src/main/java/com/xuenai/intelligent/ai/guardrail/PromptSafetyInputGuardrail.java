@@ -6,10 +6,12 @@ import dev.langchain4j.guardrail.InputGuardrailResult;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 /**
  * 提示词输入护轨
+ * 只检查用户输入的部分，系统附加到消息中的内容（如项目上下文）由提取函数去除
  */
 public class PromptSafetyInputGuardrail implements InputGuardrail {
 
@@ -28,9 +30,22 @@ public class PromptSafetyInputGuardrail implements InputGuardrail {
             Pattern.compile("(?i)new\\s+(?:instructions?|commands?|prompts?)\\s*:")
     );
 
+    /**
+     * 从用户消息中提取用户输入的部分
+     */
+    private final UnaryOperator<String> userTextExtractor;
+
+    public PromptSafetyInputGuardrail() {
+        this(UnaryOperator.identity());
+    }
+
+    public PromptSafetyInputGuardrail(UnaryOperator<String> userTextExtractor) {
+        this.userTextExtractor = userTextExtractor;
+    }
+
     @Override
     public InputGuardrailResult validate(UserMessage userMessage) {
-        String input = userMessage.singleText();
+        String input = userTextExtractor.apply(userMessage.singleText());
         // 检查输入长度
 //        if (input.length() > 5000) {
 //            return fatal("输入内容过长，不要超过 5000 字");
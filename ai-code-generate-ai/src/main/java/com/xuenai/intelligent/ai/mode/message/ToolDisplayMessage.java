@@ -0,0 +1,17 @@
+package com.xuenai.intelligent.ai.mode.message;
+
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 工具调用展示消息
+ * 协议上与 AI 响应消息一致，但属于事件边界，下发时不参与合并，需立即刷新
+ */
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ToolDisplayMessage extends AiResponseMessage {
+
+    public ToolDisplayMessage(String data) {
+        super(data);
+    }
+}
@@ -0,0 +1,25 @@
+package com.xuenai.intelligent.ai.mode.message;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 工作流进度消息
+ * type 取值为 start / processing / finish / error / reasoning，前端据此刷新思考步骤
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class WorkflowProgressMessage extends StreamMessage {
+
+    private String content;
+
+    private Integer step;
+
+    public WorkflowProgressMessage(String type, String content, int step) {
+        super(type);
+        this.content = content;
+        this.step = step;
+    }
+}
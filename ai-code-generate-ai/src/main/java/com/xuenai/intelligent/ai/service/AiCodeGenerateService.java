@@ -6,7 +6,6 @@ import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
-import reactor.core.publisher.Flux;
 
 /**
  * AI 代码生成服务
@@ -39,7 +38,7 @@ public interface AiCodeGenerateService {
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/code-generate-html-system-prompt.txt")
-    Flux<String> generateHtmlCodeStream(String userMessage);
+    TokenStream generateHtmlCodeStream(String userMessage);
 
     /**
      * 生成多文件代码（流式）
@@ -48,7 +47,7 @@ public interface AiCodeGenerateService {
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/code-generate-multi-file-system-prompt.txt")
-    Flux<String> generateMultiFileCodeStream(String userMessage);
+    TokenStream generateMultiFileCodeStream(String userMessage);
 
     /**
      * 生成 Vue 工程化项目
@@ -0,0 +1,92 @@
+package com.xuenai.intelligent.ai.stream;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 可取消的 HTTP 客户端
+ * 发起 SSE 请求时捕获调用线程上下文中的 {@link StreamCancellation}，取消后响应体立即读到结尾并关闭连接，
+ * 模型服务端随之停止生成
+ */
+public class CancellableHttpClient implements HttpClient {
+
+    private final HttpClient delegate;
+
+    public CancellableHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        return delegate.execute(request);
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        StreamCancellation cancellation = StreamCancellation.current();
+        if (cancellation == null) {
+            delegate.execute(request, parser, listener);
+            return;
+        }
+        if (cancellation.isCancelled()) {
+            return;
+        }
+        delegate.execute(request, (httpResponseBody, eventListener) -> {
+            CancellableInputStream inputStream = new CancellableInputStream(httpResponseBody);
+            Runnable unregister = cancellation.register(inputStream::abort);
+            try {
+                parser.parse(inputStream, eventListener);
+            } finally {
+                unregister.run();
+            }
+        }, listener);
+    }
+
+    /**
+     * 取消后视为已读到结尾的输入流
+     */
+    private static class CancellableInputStream extends FilterInputStream {
+
+        private volatile boolean aborted;
+
+        CancellableInputStream(InputStream in) {
+            super(in);
+        }
+
+        void abort() {
+            aborted = true;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            return aborted ? -1 : super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (aborted) {
+                return -1;
+            }
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                // 取消时关闭连接导致的读取异常视为正常结束
+                if (aborted) {
+                    return -1;
+                }
+                throw e;
+            }
+        }
+    }
+}
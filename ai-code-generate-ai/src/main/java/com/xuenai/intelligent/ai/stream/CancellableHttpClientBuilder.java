@@ -0,0 +1,41 @@
+package com.xuenai.intelligent.ai.stream;
+
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
+
+import java.time.Duration;
+
+/**
+ * 可取消的 HTTP 客户端构建器，包装 classpath 上默认的 HTTP 客户端实现
+ */
+public class CancellableHttpClientBuilder implements HttpClientBuilder {
+
+    private final HttpClientBuilder delegate = HttpClientBuilderLoader.loadHttpClientBuilder();
+
+    @Override
+    public Duration connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        delegate.connectTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return delegate.readTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        delegate.readTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public CancellableHttpClient build() {
+        return new CancellableHttpClient(delegate.build());
+    }
+}
@@ -0,0 +1,95 @@
+package com.xuenai.intelligent.ai.stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 流式生成的取消令牌
+ * 由 TokenStream 持有，客户端断开时取消，贯穿模型 HTTP 流与工具调用循环；
+ * 发起模型调用时通过线程上下文传递给底层 HTTP 客户端
+ */
+@Slf4j
+public class StreamCancellation {
+
+    private static final ThreadLocal<StreamCancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * 取消，执行所有已注册的回调
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Runnable callback : callbacks) {
+            runQuietly(callback);
+        }
+        callbacks.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 注册取消回调，已取消时立即执行
+     *
+     * @param callback 回调
+     * @return 注销回调的动作
+     */
+    public Runnable register(Runnable callback) {
+        callbacks.add(callback);
+        if (cancelled && callbacks.remove(callback)) {
+            runQuietly(callback);
+        }
+        return () -> callbacks.remove(callback);
+    }
+
+    /**
+     * 在当前令牌的上下文中执行（通常是发起一次模型调用）
+     */
+    public void runWithin(Runnable action) {
+        StreamCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 获取当前线程上下文中的令牌
+     *
+     * @return 令牌，不存在时返回 null
+     */
+    public static StreamCancellation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程上下文中的令牌是否已取消
+     */
+    public static boolean isCurrentCancelled() {
+        StreamCancellation cancellation = CURRENT.get();
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    private static void runQuietly(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            log.warn("执行取消回调失败: {}", e.getMessage());
+        }
+    }
+}
@@ -2,12 +2,21 @@ package com.xuenai.intelligent.ai.tools;
 
 import cn.hutool.json.JSONObject;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+
 /**
  * 工具基类
  * 定义所有工具的通用接口
  */
 public abstract class BaseTool {
 
+    /**
+     * 压缩后内容的标记，已压缩的内容不再重复压缩
+     */
+    public static final String COMPACTED_MARK = "[已压缩]";
+
     /**
      * 获取工具的英文名称（对应方法名）
      *
@@ -38,5 +47,75 @@ public abstract class BaseTool {
      * @return 格式化的工具执行结果
      */
     public abstract String generateToolExecutedResult(JSONObject arguments);
+
+    /**
+     * 压缩保存到对话记忆中的工具调用参数（工具执行后大段内容已落盘，模型无需再次看到）
+     *
+     * @param arguments 工具执行参数
+     * @return 压缩后的参数 JSON，返回 null 表示不压缩
+     */
+    public String compactArguments(JSONObject arguments) {
+        return null;
+    }
+
+    /**
+     * 压缩保存到对话记忆中的工具执行结果（仅压缩模型已经处理过的历史轮次）
+     *
+     * @param arguments 工具执行参数
+     * @param result    工具执行结果
+     * @return 压缩后的结果，返回 null 表示不压缩
+     */
+    public String compactResult(JSONObject arguments, String result) {
+        return null;
+    }
+
+    /**
+     * 并发执行的互斥键，同一轮中互斥键不同的工具调用可以并发执行，相同的按顺序执行
+     *
+     * @param arguments 工具执行参数
+     * @return 互斥键（通常为文件路径），返回 null 表示不能与其他调用并发
+     */
+    public String concurrencyKey(JSONObject arguments) {
+        return null;
+    }
+
+    /**
+     * 是否支持提前执行：模型仍在流式输出后续调用时，参数完整的调用即可开始执行
+     * 只应对结果不影响同一轮后续调用参数的工具（如写文件）开启
+     *
+     * @return 是否支持提前执行
+     */
+    public boolean supportsEagerExecution() {
+        return false;
+    }
+
+    /**
+     * 以规范化后的文件路径作为互斥键
+     */
+    protected static String pathKey(String relativePath) {
+        if (relativePath == null) {
+            return null;
+        }
+        try {
+            return Paths.get(relativePath).normalize().toString();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 生成内容占位说明
+     */
+    protected static String compactedStub(String description, String content) {
+        int bytes = content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length;
+        return COMPACTED_MARK + " " + description + "，共 " + bytes + " 字节";
+    }
+
+    /**
+     * 是否已经压缩
+     */
+    protected static boolean isCompacted(String content) {
+        return content != null && content.startsWith(COMPACTED_MARK);
+    }
 }
 
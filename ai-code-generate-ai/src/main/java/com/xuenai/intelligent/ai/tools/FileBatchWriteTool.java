@@ -0,0 +1,137 @@
+package com.xuenai.intelligent.ai.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import dev.langchain4j.model.output.structured.Description;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件批量写入工具
+ * 一次调用写入多个文件，减少模型请求轮次；全部路径校验通过后才写入，整批一起落盘（先写临时文件再原子替换）
+ */
+@Slf4j
+@Component
+public class FileBatchWriteTool extends BaseTool {
+
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
+    /**
+     * 待写入的文件
+     */
+    @Data
+    public static class FileEntry {
+
+        @Description("文件的相对路径")
+        private String relativePath;
+
+        @Description("要写入文件的内容")
+        private String content;
+    }
+
+    /**
+     * 批量写入文件
+     *
+     * @param files 待写入的文件列表
+     * @param appId 应用 ID,通过LangChain4J上下文传参
+     * @return 写入结果
+     */
+    @Tool(name = "writeFiles", value = "一次写入多个文件，创建项目或同时新建、重写多个文件时优先使用")
+    public String writeFiles(@P(value = "待写入的文件列表，每项包含文件的相对路径与完整内容") List<FileEntry> files, @ToolMemoryId Long appId) {
+        if (files == null || files.isEmpty()) {
+            return "错误：文件列表为空";
+        }
+        // 先校验全部路径，任一不合法则整批不写入；同一路径出现多次时以最后一次为准
+        Map<String, FileEntry> targets = new LinkedHashMap<>();
+        Map<String, String> contents = new LinkedHashMap<>();
+        for (FileEntry file : files) {
+            if (file == null || file.getRelativePath() == null || file.getContent() == null) {
+                return "错误：文件路径和内容不能为空";
+            }
+            String path = ProjectFileSystem.resolve(appId, file.getRelativePath());
+            if (path == null || path.isEmpty()) {
+                return "错误：路径不在项目目录内 - " + file.getRelativePath();
+            }
+            targets.put(path, file);
+            contents.put(path, file.getContent());
+        }
+        try {
+            projectFileSystem.writeAll(appId, contents);
+            log.info("成功批量写入 {} 个文件", targets.size());
+            return "文件批量写入成功: " + String.join(", ", targets.values().stream().map(FileEntry::getRelativePath).toList());
+        } catch (IOException e) {
+            String errorMessage = "文件批量写入失败, 错误信息: " + e.getMessage();
+            log.error(errorMessage, e);
+            return errorMessage;
+        }
+    }
+
+    @Override
+    public String getToolName() {
+        return "writeFiles";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "批量写入文件";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        JSONArray files = arguments.getJSONArray("files");
+        StringBuilder sb = new StringBuilder();
+        if (files == null) {
+            return sb.toString();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            JSONObject file = files.getJSONObject(i);
+            String relativePath = file.getStr("relativePath");
+            String suffix = FileUtil.getSuffix(relativePath);
+            sb.append(String.format("""
+                    [工具调用] %s %s
+                    ```%s
+                    %s
+                    ```
+                    """, getDisplayName(), relativePath, suffix, file.getStr("content")));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String compactArguments(JSONObject arguments) {
+        JSONArray files = arguments.getJSONArray("files");
+        if (files == null) {
+            return null;
+        }
+        JSONArray compactedFiles = new JSONArray();
+        boolean changed = false;
+        for (int i = 0; i < files.size(); i++) {
+            JSONObject file = new JSONObject(files.getJSONObject(i));
+            String content = file.getStr("content");
+            if (content != null && !isCompacted(content)) {
+                file.set("content", compactedStub("内容已写入文件，需要时使用 readFile 读取", content));
+                changed = true;
+            }
+            compactedFiles.add(file);
+        }
+        if (!changed) {
+            return null;
+        }
+        JSONObject compacted = new JSONObject(arguments);
+        compacted.set("files", compactedFiles);
+        return compacted.toString();
+    }
+}
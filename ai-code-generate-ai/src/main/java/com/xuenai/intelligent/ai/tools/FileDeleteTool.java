@@ -1,17 +1,15 @@
 package com.xuenai.intelligent.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.xuenai.aicodegenerate.constant.AppConstant;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件删除工具
@@ -21,6 +19,9 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool {
 
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 删除指定路径的文件
      *
@@ -31,25 +32,23 @@ public class FileDeleteTool extends BaseTool {
     @Tool("删除指定路径的文件")
     public String deleteFile(@P("文件的相对路径") String relativeFilePath, @ToolMemoryId Long appId) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
+            String path = ProjectFileSystem.resolve(appId, relativeFilePath);
+            if (path == null || path.isEmpty()) {
+                return "错误：路径不在项目目录内 - " + relativeFilePath;
             }
-            if (!Files.exists(path)) {
+            if (!projectFileSystem.isFile(appId, path)) {
+                if (projectFileSystem.isDirectory(appId, path)) {
+                    return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
+                }
                 return "警告：文件不存在，无需删除 - " + relativeFilePath;
             }
-            if (!Files.isRegularFile(path)) {
-                return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
-            }
             // 安全检查：避免删除重要文件
-            String fileName = path.getFileName().toString();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
             if (isImportantFile(fileName)) {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
-            Files.delete(path);
-            log.info("成功删除文件: {}", path.toAbsolutePath());
+            projectFileSystem.delete(appId, path);
+            log.info("成功删除文件: {}", path);
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "删除文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
@@ -92,5 +91,9 @@ public class FileDeleteTool extends BaseTool {
                 [工具调用] %s %s
                 """, getDisplayName(), relativeFilePath);
     }
-}
 
+    @Override
+    public String concurrencyKey(JSONObject arguments) {
+        return pathKey(arguments.getStr("relativeFilePath"));
+    }
+}
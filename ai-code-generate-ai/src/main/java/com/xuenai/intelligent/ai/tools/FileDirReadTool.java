@@ -1,38 +1,25 @@
 package com.xuenai.intelligent.ai.tools;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
-import com.xuenai.aicodegenerate.constant.AppConstant;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.List;
-import java.util.Set;
-
 /**
  * 文件目录读取工具
- * 使用 Hutool 简化文件操作
+ * 目录结构从项目内存快照的有序索引生成，无需遍历磁盘
  */
 @Slf4j
 @Component
 public class FileDirReadTool extends BaseTool {
 
-    /**
-     * 需要忽略的文件和目录
-     */
-    private static final Set<String> IGNORED_NAMES = Set.of("node_modules", ".git", "dist", "build", ".DS_Store", ".env", "target", ".mvn", ".idea", ".vscode", "coverage");
-
-    /**
-     * 需要忽略的文件扩展名
-     */
-    private static final Set<String> IGNORED_EXTENSIONS = Set.of(".log", ".tmp", ".cache", ".lock");
+    @Resource
+    private ProjectFileSystem projectFileSystem;
 
     /**
      * @param relativeDirPath 目录的相对路径
@@ -42,35 +29,28 @@ public class FileDirReadTool extends BaseTool {
     @Tool("读取目录结构，获取指定目录下的所有文件和子目录信息")
     public String readDir(@P("目录的相对路径，为空则读取整个项目结构") String relativeDirPath, @ToolMemoryId Long appId) {
         try {
-            Path path = Paths.get(relativeDirPath == null ? "" : relativeDirPath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeDirPath == null ? "" : relativeDirPath);
-            }
-            File targetDir = path.toFile();
-            if (!targetDir.exists() || !targetDir.isDirectory()) {
+            String dir = ProjectFileSystem.resolve(appId, relativeDirPath);
+            if (dir == null || !projectFileSystem.isDirectory(appId, dir)) {
                 return "错误：目录不存在或不是目录 - " + relativeDirPath;
             }
             StringBuilder structure = new StringBuilder();
             structure.append("项目目录结构:\n");
-            // 使用 Hutool 递归获取所有文件
-            List<File> allFiles = FileUtil.loopFiles(targetDir, file -> !shouldIgnore(file.getName()));
-            // 按路径深度和名称排序显示
-            allFiles.stream().sorted((f1, f2) -> {
-                int depth1 = getRelativeDepth(targetDir, f1);
-                int depth2 = getRelativeDepth(targetDir, f2);
-                if (depth1 != depth2) {
-                    return Integer.compare(depth1, depth2);
+            int baseDepth = dir.isEmpty() ? 0 : dir.split("/").length;
+            // 索引按路径有序，同一目录下的文件连续出现，只需输出与上一个文件不同的上级目录
+            String[] previous = new String[0];
+            for (String path : projectFileSystem.list(appId, dir)) {
+                String[] segments = path.split("/");
+                int common = 0;
+                while (common < previous.length - 1 && common < segments.length - 1 && previous[common].equals(segments[common])) {
+                    common++;
                 }
-                return f1.getPath().compareTo(f2.getPath());
-            }).forEach(file -> {
-                int depth = getRelativeDepth(targetDir, file);
-                String indent = "  ".repeat(depth);
-                structure.append(indent).append(file.getName());
-            });
+                for (int depth = Math.max(common, baseDepth); depth < segments.length - 1; depth++) {
+                    structure.append("  ".repeat(depth - baseDepth)).append(segments[depth]).append("/\n");
+                }
+                structure.append("  ".repeat(segments.length - 1 - baseDepth)).append(segments[segments.length - 1]).append("\n");
+                previous = segments;
+            }
             return structure.toString();
-
         } catch (Exception e) {
             String errorMessage = "读取目录结构失败: " + relativeDirPath + ", 错误: " + e.getMessage();
             log.error(errorMessage, e);
@@ -78,37 +58,6 @@ public class FileDirReadTool extends BaseTool {
         }
     }
 
-
-    /**
-     * 计算文件相对于根目录的深度
-     *
-     * @param root 根文件
-     * @param file 指定文件
-     * @return 深度数
-     */
-    private int getRelativeDepth(File root, File file) {
-        Path rootPath = root.toPath();
-        Path filePath = file.toPath();
-        return rootPath.relativize(filePath).getNameCount() - 1;
-    }
-
-
-    /**
-     * 判断是否应该忽略该文件或目录
-     *
-     * @param fileName 文件名称
-     * @return 是否忽略
-     */
-    private boolean shouldIgnore(String fileName) {
-        // 检查是否在忽略名称列表中
-        if (IGNORED_NAMES.contains(fileName)) {
-            return true;
-        }
-
-        // 检查文件扩展名
-        return IGNORED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
-    }
-
     @Override
     public String getToolName() {
         return "readDir";
@@ -130,4 +79,9 @@ public class FileDirReadTool extends BaseTool {
                 """, getDisplayName(), relativeDirPath);
 
     }
+
+    @Override
+    public String compactResult(JSONObject arguments, String result) {
+        return compactedStub("历史读取的目录结构已省略，需要时重新读取", result);
+    }
 }
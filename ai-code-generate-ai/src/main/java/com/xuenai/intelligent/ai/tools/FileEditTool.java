@@ -0,0 +1,259 @@
+package com.xuenai.intelligent.ai.tools;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import dev.langchain4j.model.output.structured.Description;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 文件多处编辑工具
+ * 一次调用对同一文件做多处修改，每处修改通过旧内容锚定或行号范围定位；
+ * 所有修改都基于原文件定位，一次遍历拼接出新内容后只写入一次，并返回每处修改的结果
+ */
+@Slf4j
+@Component
+public class FileEditTool extends BaseTool {
+
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
+    /**
+     * 单处修改，提供 oldContent 时按内容锚定，否则按行号范围替换
+     */
+    @Data
+    public static class EditEntry {
+
+        @Description("要替换的旧内容，必须在文件中唯一出现；按行号修改时留空")
+        private String oldContent;
+
+        @Description("起始行号（从 1 开始，包含），仅在 oldContent 为空时使用")
+        private Integer startLine;
+
+        @Description("结束行号（包含），仅在 oldContent 为空时使用")
+        private Integer endLine;
+
+        @Description("替换后的新内容，为空字符串表示删除")
+        private String newContent;
+    }
+
+    /**
+     * 修改定位到原文件中的字符区间 [start, end)
+     */
+    private record ResolvedEdit(int index, int start, int end, String replacement) {
+    }
+
+    /**
+     * 对指定文件做多处修改
+     *
+     * @param relativeFilePath 文件的相对路径
+     * @param edits            修改列表
+     * @param appId            应用 ID,通过LangChain4J上下文传参
+     * @return 每处修改的结果
+     */
+    @Tool(name = "editFile", value = "对同一文件做多处修改，每处修改用唯一的旧内容或行号范围定位，行号均以修改前的文件为准；同一文件有多处修改时优先使用")
+    public String editFile(@P("文件的相对路径") String relativeFilePath, @P("修改列表") List<EditEntry> edits, @ToolMemoryId Long appId) {
+        if (edits == null || edits.isEmpty()) {
+            return "错误：修改列表为空";
+        }
+        try {
+            String path = ProjectFileSystem.resolve(appId, relativeFilePath);
+            String originalContent = path == null ? null : projectFileSystem.read(appId, path);
+            if (originalContent == null) {
+                return "错误：文件不存在或不是文件 - " + relativeFilePath;
+            }
+            String[] statuses = new String[edits.size()];
+            String modifiedContent = applyEdits(originalContent, edits, statuses);
+            int applied = (int) Arrays.stream(statuses).filter("成功"::equals).count();
+            if (applied > 0 && !originalContent.equals(modifiedContent)) {
+                projectFileSystem.write(appId, path, modifiedContent);
+                log.info("成功修改文件: {}，{}/{} 处修改生效", path, applied, edits.size());
+            }
+            StringBuilder result = new StringBuilder();
+            result.append(applied == edits.size() ? "文件修改成功: " : "文件部分修改: ")
+                    .append(relativeFilePath).append("（").append(applied).append("/").append(edits.size()).append(" 处）");
+            for (int i = 0; i < statuses.length; i++) {
+                result.append("\n#").append(i + 1).append(" ").append(statuses[i]);
+            }
+            return result.toString();
+        } catch (IOException e) {
+            String errorMessage = "修改文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
+            log.error(errorMessage, e);
+            return errorMessage;
+        }
+    }
+
+    /**
+     * 将所有修改应用到原内容，失败或与前面修改重叠的修改被跳过
+     *
+     * @param content  原内容
+     * @param edits    修改列表
+     * @param statuses 输出每处修改的结果，与 edits 一一对应
+     * @return 修改后的内容
+     */
+    static String applyEdits(String content, List<EditEntry> edits, String[] statuses) {
+        int[] lineStarts = lineStarts(content);
+        List<ResolvedEdit> resolved = new ArrayList<>(edits.size());
+        for (int i = 0; i < edits.size(); i++) {
+            EditEntry edit = edits.get(i);
+            if (edit == null || edit.getNewContent() == null) {
+                statuses[i] = "失败：newContent 不能为空";
+                continue;
+            }
+            ResolvedEdit resolvedEdit = StrUtil.isNotEmpty(edit.getOldContent())
+                    ? resolveAnchor(content, i, edit, statuses)
+                    : resolveLineRange(content, lineStarts, i, edit, statuses);
+            if (resolvedEdit != null) {
+                resolved.add(resolvedEdit);
+            }
+        }
+        resolved.sort(Comparator.comparingInt(ResolvedEdit::start).thenComparingInt(ResolvedEdit::index));
+        StringBuilder sb = new StringBuilder(content.length() + 256);
+        int cursor = 0;
+        for (ResolvedEdit edit : resolved) {
+            if (edit.start() < cursor) {
+                statuses[edit.index()] = "失败：与其他修改的范围重叠";
+                continue;
+            }
+            sb.append(content, cursor, edit.start()).append(edit.replacement());
+            cursor = edit.end();
+            statuses[edit.index()] = "成功";
+        }
+        sb.append(content, cursor, content.length());
+        return sb.toString();
+    }
+
+    private static ResolvedEdit resolveAnchor(String content, int index, EditEntry edit, String[] statuses) {
+        String oldContent = edit.getOldContent();
+        int start = content.indexOf(oldContent);
+        if (start < 0) {
+            statuses[index] = "失败：未找到旧内容";
+            return null;
+        }
+        if (content.indexOf(oldContent, start + 1) >= 0) {
+            statuses[index] = "失败：旧内容出现多次，请提供更长的上下文或使用行号";
+            return null;
+        }
+        return new ResolvedEdit(index, start, start + oldContent.length(), edit.getNewContent());
+    }
+
+    private static ResolvedEdit resolveLineRange(String content, int[] lineStarts, int index, EditEntry edit, String[] statuses) {
+        Integer startLine = edit.getStartLine();
+        Integer endLine = edit.getEndLine() == null ? startLine : edit.getEndLine();
+        int lineCount = lineStarts.length;
+        if (startLine == null || startLine < 1 || endLine < startLine || endLine > lineCount) {
+            statuses[index] = "失败：行号范围无效，文件共 " + lineCount + " 行";
+            return null;
+        }
+        int start = lineStarts[startLine - 1];
+        int end = endLine < lineCount ? lineStarts[endLine] : content.length();
+        String replacement = edit.getNewContent();
+        // 被替换的行以换行结尾时，补齐新内容的换行，避免与下一行连在一起
+        if (!replacement.isEmpty() && end > start && content.charAt(end - 1) == '\n' && !replacement.endsWith("\n")) {
+            replacement = replacement + "\n";
+        }
+        return new ResolvedEdit(index, start, end, replacement);
+    }
+
+    /**
+     * 每一行起始位置的字符偏移
+     */
+    private static int[] lineStarts(String content) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n' && i + 1 < content.length()) {
+                starts.add(i + 1);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public String getToolName() {
+        return "editFile";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "多处修改文件";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        String relativeFilePath = arguments.getStr("relativeFilePath");
+        JSONArray edits = arguments.getJSONArray("edits");
+        StringBuilder sb = new StringBuilder(String.format("[工具调用] %s %s\n", getDisplayName(), relativeFilePath));
+        if (edits == null) {
+            return sb.toString();
+        }
+        for (int i = 0; i < edits.size(); i++) {
+            JSONObject edit = edits.getJSONObject(i);
+            String oldContent = edit.getStr("oldContent");
+            String location = StrUtil.isNotEmpty(oldContent)
+                    ? "替换前:\n```\n" + oldContent + "\n```"
+                    : "第 " + edit.getStr("startLine") + "-" + edit.getStr("endLine", edit.getStr("startLine")) + " 行";
+            sb.append(String.format("""
+
+                    #%d %s
+                    替换后:
+                    ```
+                    %s
+                    ```
+                    """, i + 1, location, edit.getStr("newContent")));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean supportsEagerExecution() {
+        return true;
+    }
+
+    @Override
+    public String concurrencyKey(JSONObject arguments) {
+        return pathKey(arguments.getStr("relativeFilePath"));
+    }
+
+    @Override
+    public String compactArguments(JSONObject arguments) {
+        JSONArray edits = arguments.getJSONArray("edits");
+        if (edits == null) {
+            return null;
+        }
+        JSONArray compactedEdits = new JSONArray();
+        boolean changed = false;
+        for (int i = 0; i < edits.size(); i++) {
+            JSONObject edit = new JSONObject(edits.getJSONObject(i));
+            String newContent = edit.getStr("newContent");
+            if (newContent != null && !isCompacted(newContent)) {
+                String oldContent = edit.getStr("oldContent");
+                if (StrUtil.isNotEmpty(oldContent)) {
+                    edit.set("oldContent", compactedStub("被替换的旧内容已省略", oldContent));
+                }
+                edit.set("newContent", compactedStub("替换后的内容已写入文件，需要时使用 readFile 读取", newContent));
+                changed = true;
+            }
+            compactedEdits.add(edit);
+        }
+        if (!changed) {
+            return null;
+        }
+        JSONObject compacted = new JSONObject(arguments);
+        compacted.set("edits", compactedEdits);
+        return compacted.toString();
+    }
+}
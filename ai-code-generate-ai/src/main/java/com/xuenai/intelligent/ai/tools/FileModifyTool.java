@@ -1,18 +1,15 @@
 package com.xuenai.intelligent.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.xuenai.aicodegenerate.constant.AppConstant;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 文件修改工具
@@ -22,6 +19,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool {
 
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 修改指定路径的文件内容
      *
@@ -34,16 +34,11 @@ public class FileModifyTool extends BaseTool {
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(@P("文件的相对路径") String relativeFilePath, @P("要替换的旧内容") String oldContent, @P("替换后的新内容") String newContent, @ToolMemoryId Long appId) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            String path = ProjectFileSystem.resolve(appId, relativeFilePath);
+            String originalContent = path == null ? null : projectFileSystem.read(appId, path);
+            if (originalContent == null) {
                 return "错误：文件不存在或不是文件 - " + relativeFilePath;
             }
-            String originalContent = Files.readString(path);
             if (!originalContent.contains(oldContent)) {
                 return "警告：文件中未找到要替换的内容，文件未修改 - " + relativeFilePath;
             }
@@ -51,8 +46,8 @@ public class FileModifyTool extends BaseTool {
             if (originalContent.equals(modifiedContent)) {
                 return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
             }
-            Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            log.info("成功修改文件: {}", path.toAbsolutePath());
+            projectFileSystem.write(appId, path, modifiedContent);
+            log.info("成功修改文件: {}", path);
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "修改文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
@@ -90,5 +85,28 @@ public class FileModifyTool extends BaseTool {
                 ```
                 """, getDisplayName(), relativeFilePath, oldContent, newContent);
     }
+
+    @Override
+    public boolean supportsEagerExecution() {
+        return true;
+    }
+
+    @Override
+    public String concurrencyKey(JSONObject arguments) {
+        return pathKey(arguments.getStr("relativeFilePath"));
+    }
+
+    @Override
+    public String compactArguments(JSONObject arguments) {
+        String oldContent = arguments.getStr("oldContent");
+        String newContent = arguments.getStr("newContent");
+        if (isCompacted(newContent)) {
+            return null;
+        }
+        JSONObject compacted = new JSONObject(arguments);
+        compacted.set("oldContent", compactedStub("被替换的旧内容已省略", oldContent));
+        compacted.set("newContent", compactedStub("替换后的内容已写入文件，需要时使用 readFile 读取", newContent));
+        return compacted.toString();
+    }
 }
 
@@ -1,46 +1,82 @@
 package com.xuenai.intelligent.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.xuenai.aicodegenerate.constant.AppConstant;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 文件读取工具
- * 支持 AI 通过工具调用的方式读取文件内容
+ * 支持 AI 通过工具调用的方式读取文件内容，可按行号范围读取或只读取文件大纲，单次返回的内容不超过 MAX_RESULT_BYTES
  */
 @Slf4j
 @Component
 public class FileReadTool extends BaseTool {
 
+    /**
+     * 单次读取返回内容的字节上限，超出部分截断并提示按行号继续读取
+     */
+    static final int MAX_RESULT_BYTES = 24 * 1024;
+
+    /**
+     * 大纲中单行声明的最大展示长度
+     */
+    private static final int OUTLINE_LINE_LENGTH = 100;
+
+    /**
+     * Vue 单文件组件的顶层区块
+     */
+    private static final Pattern SECTION_START_PATTERN = Pattern.compile("^<(template|script|style)\\b[^>]*>");
+
+    /**
+     * 顶层声明（不缩进的导出、函数、类、变量及 Vue 编译宏）
+     */
+    private static final Pattern DECLARATION_PATTERN = Pattern.compile(
+            "^(export\\s+(default\\b|\\{)|(export\\s+)?(async\\s+)?function\\b|(export\\s+)?(class|const|let|var|interface|type|enum)\\s+\\w+|(const\\s+\\w+\\s*=\\s*)?(defineProps|defineEmits|defineExpose|defineOptions|defineModel)\\b)");
+
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 读取指定路径的文件内容
      *
      * @param relativeFilePath 文件的相对路径
+     * @param startLine        起始行号（从 1 开始，包含），为空时从第一行开始
+     * @param endLine          结束行号（包含），为空时读到文件末尾
+     * @param outline          是否只读取文件大纲
      * @param appId            应用 ID,通过LangChain4J上下文传参
      * @return 文件内容
      */
-    @Tool("读取指定路径的文件内容")
-    public String readFile(@P("文件的相对路径") String relativeFilePath, @ToolMemoryId Long appId) {
+    @Tool("读取指定路径的文件内容。大文件可先用 outline 查看结构与行号，再按 startLine / endLine 读取需要的部分")
+    public String readFile(@P("文件的相对路径") String relativeFilePath,
+                           @P(value = "起始行号，从 1 开始（包含），不填则从第一行开始", required = false) Integer startLine,
+                           @P(value = "结束行号（包含），不填则读到文件末尾", required = false) Integer endLine,
+                           @P(value = "为 true 时只返回文件大纲：Vue 的 template / script / style 区块行号范围，以及顶层声明与导出所在行", required = false) Boolean outline,
+                           @ToolMemoryId Long appId) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            String path = ProjectFileSystem.resolve(appId, relativeFilePath);
+            String content = path == null ? null : projectFileSystem.read(appId, path);
+            if (content == null) {
                 return "错误：文件不存在或不是文件 - " + relativeFilePath;
             }
-            return Files.readString(path);
+            List<String> lines = content.lines().toList();
+            if (Boolean.TRUE.equals(outline)) {
+                return outline(relativeFilePath, lines);
+            }
+            if (startLine == null && endLine == null && content.getBytes(StandardCharsets.UTF_8).length <= MAX_RESULT_BYTES) {
+                return content;
+            }
+            return readLines(lines, startLine, endLine);
         } catch (IOException e) {
             String errorMessage = "读取文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
             log.error(errorMessage, e);
@@ -48,6 +84,116 @@ public class FileReadTool extends BaseTool {
         }
     }
 
+    /**
+     * 按行号范围读取，超出字节上限时在行边界截断
+     */
+    static String readLines(List<String> lines, Integer startLine, Integer endLine) {
+        int total = lines.size();
+        int from = startLine == null ? 1 : Math.max(startLine, 1);
+        int to = endLine == null ? total : Math.min(endLine, total);
+        if (from > to) {
+            return "错误：行号范围无效，文件共 " + total + " 行";
+        }
+        StringBuilder body = new StringBuilder();
+        int bytes = 0;
+        int last = from - 1;
+        for (int i = from; i <= to; i++) {
+            String line = lines.get(i - 1);
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            // 至少返回一行，避免单行超长时无法推进
+            if (bytes + lineBytes > MAX_RESULT_BYTES && i > from) {
+                break;
+            }
+            body.append(line).append('\n');
+            bytes += lineBytes;
+            last = i;
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("第 ").append(from).append("-").append(last).append(" 行（文件共 ").append(total).append(" 行）：\n");
+        result.append(body);
+        if (last < to) {
+            result.append("[内容已截断：超出单次读取上限 ").append(MAX_RESULT_BYTES / 1024)
+                    .append("KB，使用 startLine=").append(last + 1).append(" 继续读取]");
+        }
+        return result.toString();
+    }
+
+    /**
+     * 生成文件大纲：Vue 区块的行号范围与各区块内的顶层声明
+     */
+    public static String outline(String relativeFilePath, List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("文件大纲 ").append(relativeFilePath).append("（共 ").append(lines.size()).append(" 行）\n");
+        int sections = 0;
+        int declarations = 0;
+        int imports = 0;
+        int firstImport = 0;
+        String section = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int lineNumber = i + 1;
+            if (section == null) {
+                Matcher matcher = SECTION_START_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    section = matcher.group(1);
+                    sections++;
+                    int end = findSectionEnd(lines, i, section);
+                    sb.append(matcher.group()).append(" 第 ").append(lineNumber).append("-").append(end).append(" 行\n");
+                    if (end == lineNumber) {
+                        section = null;
+                    }
+                    continue;
+                }
+            } else if (line.startsWith("</" + section + ">")) {
+                section = null;
+                appendImports(sb, imports, firstImport);
+                imports = 0;
+                continue;
+            }
+            // template 与 style 区块只列出范围，其余内容扫描顶层声明
+            if ("template".equals(section) || "style".equals(section)) {
+                continue;
+            }
+            if (line.startsWith("import ")) {
+                if (imports++ == 0) {
+                    firstImport = lineNumber;
+                }
+                continue;
+            }
+            if (DECLARATION_PATTERN.matcher(line).find()) {
+                String declaration = line.strip();
+                if (declaration.length() > OUTLINE_LINE_LENGTH) {
+                    declaration = declaration.substring(0, OUTLINE_LINE_LENGTH) + "...";
+                }
+                sb.append("  ").append(lineNumber).append(": ").append(declaration).append("\n");
+                declarations++;
+            }
+        }
+        appendImports(sb, imports, firstImport);
+        if (sections == 0 && declarations == 0) {
+            sb.append("未识别到区块或顶层声明，请按行号范围读取\n");
+        }
+        return sb.toString();
+    }
+
+    private static void appendImports(StringBuilder sb, int imports, int firstImport) {
+        if (imports > 0) {
+            sb.append("  import 语句 ").append(imports).append(" 条，首条位于第 ").append(firstImport).append(" 行\n");
+        }
+    }
+
+    private static int findSectionEnd(List<String> lines, int start, String section) {
+        if (lines.get(start).contains("</" + section + ">")) {
+            return start + 1;
+        }
+        for (int i = start + 1; i < lines.size(); i++) {
+            if (lines.get(i).startsWith("</" + section + ">")) {
+                return i + 1;
+            }
+        }
+        return lines.size();
+    }
+
     @Override
     public String getToolName() {
         return "readFile";
@@ -61,9 +207,25 @@ public class FileReadTool extends BaseTool {
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
         String relativeFilePath = arguments.getStr("relativeFilePath");
+        String range = "";
+        if (arguments.getBool("outline", false)) {
+            range = "（大纲）";
+        } else if (arguments.get("startLine") != null || arguments.get("endLine") != null) {
+            range = "（第 " + arguments.getStr("startLine", "1") + "-" + arguments.getStr("endLine", "末") + " 行）";
+        }
         return String.format("""
-                [工具调用] %s %s
-                """, getDisplayName(), relativeFilePath);
+                [工具调用] %s %s%s
+                """, getDisplayName(), relativeFilePath, range);
+    }
+
+    @Override
+    public String concurrencyKey(JSONObject arguments) {
+        return pathKey(arguments.getStr("relativeFilePath"));
+    }
+
+    @Override
+    public String compactResult(JSONObject arguments, String result) {
+        return compactedStub("历史读取的文件内容已省略，文件可能已被修改，需要时重新读取 " + arguments.getStr("relativeFilePath"), result);
     }
 }
 
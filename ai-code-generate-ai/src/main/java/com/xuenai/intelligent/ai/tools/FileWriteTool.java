@@ -2,19 +2,14 @@ package com.xuenai.intelligent.ai.tools;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-
-import static com.xuenai.aicodegenerate.constant.AppConstant.CODE_OUTPUT_ROOT_DIR;
-
 /**
  * 文件写入工具类
  */
@@ -22,6 +17,9 @@ import static com.xuenai.aicodegenerate.constant.AppConstant.CODE_OUTPUT_ROOT_DI
 @Component
 public class FileWriteTool extends BaseTool {
 
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 写入文件到指定路径
      *
@@ -33,18 +31,12 @@ public class FileWriteTool extends BaseTool {
     @Tool(name = "writeFile", value = "写入文件到指定路径")
     public String writeFile(@P(value = "文件的相对路径") String relativePath, @P(value = "要写入文件的内容") String content, @ToolMemoryId Long appId) {
         try {
-            Path path = Paths.get(relativePath);
-            if (!path.isAbsolute()) {
-                String projectName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(CODE_OUTPUT_ROOT_DIR, projectName);
-                path = projectRoot.resolve(relativePath);
-            }
-            Path parentPath = path.getParent();
-            if (parentPath != null) {
-                Files.createDirectories(parentPath);
+            String path = ProjectFileSystem.resolve(appId, relativePath);
+            if (path == null || path.isEmpty()) {
+                return "错误：路径不在项目目录内 - " + relativePath;
             }
-            Files.write(path, content.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            log.info("成功写入文件: {}", path.toAbsolutePath());
+            projectFileSystem.write(appId, path, content);
+            log.info("成功写入文件: {}", path);
             return "文件写入成功: " + relativePath;
         } catch (Exception e) {
             String errorMessage = "文件写入失败: " + relativePath + ", 错误信息: " + e.getMessage();
@@ -75,4 +67,25 @@ public class FileWriteTool extends BaseTool {
                 ```
                 """, getDisplayName(), relativeFilePath, suffix, content);
     }
+
+    @Override
+    public boolean supportsEagerExecution() {
+        return true;
+    }
+
+    @Override
+    public String concurrencyKey(JSONObject arguments) {
+        return pathKey(arguments.getStr("relativePath", arguments.getStr("relativeFilePath")));
+    }
+
+    @Override
+    public String compactArguments(JSONObject arguments) {
+        String content = arguments.getStr("content");
+        if (content == null || isCompacted(content)) {
+            return null;
+        }
+        JSONObject compacted = new JSONObject(arguments);
+        compacted.set("content", compactedStub("内容已写入文件，需要时使用 readFile 读取", content));
+        return compacted.toString();
+    }
 }
@@ -0,0 +1,109 @@
+package com.xuenai.intelligent.ai.tools;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工具调用消息压缩
+ * 对话记忆中的工具调用参数（如写入的文件内容）替换为占位说明，内容以磁盘文件为准；
+ * 工具执行结果只保留最近一轮的完整内容（模型尚未处理），更早轮次的结果同样替换为占位说明。
+ * 这样工具调用循环中每次请求的大小随调用次数增长，而不是随代码总量增长
+ */
+@Slf4j
+@Component
+public class ToolMessageCompactor {
+
+    @Resource
+    private ToolManage toolManage;
+
+    /**
+     * 压缩消息列表
+     *
+     * @param messages 对话记忆
+     * @return 压缩后的对话记忆，没有可压缩的内容时返回原列表
+     */
+    public List<ChatMessage> compact(List<ChatMessage> messages) {
+        int latestRound = -1;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                latestRound = i;
+                break;
+            }
+        }
+        if (latestRound < 0) {
+            return messages;
+        }
+        List<ChatMessage> result = new ArrayList<>(messages.size());
+        // 结果消息需要对应请求的原始参数，先于压缩记录
+        Map<String, JSONObject> argumentsById = new HashMap<>();
+        boolean changed = false;
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            ChatMessage compacted = message;
+            if (message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                compacted = compactRequests(aiMessage, argumentsById);
+            } else if (message instanceof ToolExecutionResultMessage resultMessage && i < latestRound) {
+                compacted = compactResult(resultMessage, argumentsById.get(resultMessage.id()));
+            }
+            changed |= compacted != message;
+            result.add(compacted);
+        }
+        return changed ? result : messages;
+    }
+
+    private AiMessage compactRequests(AiMessage aiMessage, Map<String, JSONObject> argumentsById) {
+        List<ToolExecutionRequest> requests = new ArrayList<>(aiMessage.toolExecutionRequests().size());
+        boolean changed = false;
+        for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+            BaseTool tool = toolManage.getTool(request.name());
+            JSONObject arguments = parseArguments(request.arguments());
+            if (request.id() != null && arguments != null) {
+                argumentsById.put(request.id(), arguments);
+            }
+            String compactedArguments = tool == null || arguments == null ? null : tool.compactArguments(arguments);
+            if (compactedArguments == null) {
+                requests.add(request);
+                continue;
+            }
+            requests.add(ToolExecutionRequest.builder().id(request.id()).name(request.name()).arguments(compactedArguments).build());
+            changed = true;
+        }
+        if (!changed) {
+            return aiMessage;
+        }
+        return aiMessage.text() == null ? AiMessage.from(requests) : AiMessage.from(aiMessage.text(), requests);
+    }
+
+    private ChatMessage compactResult(ToolExecutionResultMessage resultMessage, JSONObject arguments) {
+        BaseTool tool = toolManage.getTool(resultMessage.toolName());
+        if (tool == null || BaseTool.isCompacted(resultMessage.text())) {
+            return resultMessage;
+        }
+        String compactedResult = tool.compactResult(arguments == null ? new JSONObject() : arguments, resultMessage.text());
+        if (compactedResult == null) {
+            return resultMessage;
+        }
+        return ToolExecutionResultMessage.from(resultMessage.id(), resultMessage.toolName(), compactedResult);
+    }
+
+    private static JSONObject parseArguments(String arguments) {
+        try {
+            return JSONUtil.parseObj(arguments);
+        } catch (Exception e) {
+            log.warn("解析工具调用参数失败，跳过压缩: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.langchain4j.model.openai;
 
+import com.xuenai.intelligent.ai.stream.StreamCancellation;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.http.client.HttpClientBuilder;
 import dev.langchain4j.internal.ExceptionMapper;
@@ -119,15 +120,28 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                                 .build())
                         .build();
 
+        // The HTTP client captures the same cancellation and aborts the response body when it is cancelled
+        StreamCancellation cancellation = StreamCancellation.current();
+        if (cancellation != null && cancellation.isCancelled()) {
+            return;
+        }
+
         OpenAiStreamingResponseBuilder openAiResponseBuilder = new OpenAiStreamingResponseBuilder();
         ToolExecutionRequestBuilder toolBuilder = new ToolExecutionRequestBuilder();
 
         client.chatCompletion(openAiRequest)
                 .onPartialResponse(partialResponse -> {
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        return;
+                    }
                     openAiResponseBuilder.append(partialResponse);
                     handle(partialResponse, toolBuilder, handler);
                 })
                 .onComplete(() -> {
+                    // A cancelled stream ends early; its partial response must not be treated as complete
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        return;
+                    }
                     if (toolBuilder.hasToolExecutionRequests()) {
                         try {
                             handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
@@ -143,6 +157,9 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                     }
                 })
                 .onError(throwable -> {
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        return;
+                    }
                     RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
                     withLoggingExceptions(() -> handler.onError(mappedException));
                 })
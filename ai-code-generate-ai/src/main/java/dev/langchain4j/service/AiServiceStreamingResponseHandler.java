@@ -1,5 +1,7 @@
 package dev.langchain4j.service;
 
+import com.xuenai.intelligent.ai.stream.StreamCancellation;
+import com.xuenai.intelligent.ai.tools.BaseTool;
 import dev.langchain4j.Internal;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
@@ -22,8 +24,10 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static dev.langchain4j.internal.Utils.copy;
 import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
@@ -57,6 +61,9 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final Map<String, ToolExecutor> toolExecutors;
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
+    private final StreamCancellation cancellation;
+    private final Function<String, BaseTool> toolLookup;
+    private final ToolExecutionScheduler toolExecutionScheduler;
 
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
@@ -72,8 +79,10 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
             TokenUsage tokenUsage,
             List<ToolSpecification> toolSpecifications,
             Map<String, ToolExecutor> toolExecutors,
+            Function<String, BaseTool> toolLookup,
             GuardrailRequestParams commonGuardrailParams,
-            Object methodKey) {
+            Object methodKey,
+            StreamCancellation cancellation) {
         this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
         this.context = ensureNotNull(context, "context");
         this.memoryId = ensureNotNull(memoryId, "memoryId");
@@ -92,11 +101,17 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
         this.toolSpecifications = copy(toolSpecifications);
         this.toolExecutors = copy(toolExecutors);
+        this.toolLookup = ensureNotNull(toolLookup, "toolLookup");
+        this.toolExecutionScheduler = new ToolExecutionScheduler(this::executeTool, toolLookup);
         this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        this.cancellation = ensureNotNull(cancellation, "cancellation");
     }
 
     @Override
     public void onPartialResponse(String partialResponse) {
+        if (cancellation.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         if (hasOutputGuardrails) {
             responseBuffer.add(partialResponse);
@@ -107,20 +122,44 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+        if (cancellation.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         partialToolExecutionRequestHandler.accept(index, partialToolExecutionRequest);
     }
 
+    @Override
+    public void onCompleteToolExecutionRequest(int index, ToolExecutionRequest completeToolExecutionRequest) {
+        if (cancellation.isCancelled()) {
+            return;
+        }
+        if (completeToolExecutionRequestHandler != null) {
+            completeToolExecutionRequestHandler.accept(index, completeToolExecutionRequest);
+        }
+        // Start file writes while the model is still streaming later calls; results are reconciled on completion
+        toolExecutionScheduler.submitEagerly(completeToolExecutionRequest);
+    }
+
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
+        // Cancelled streams end here: no memory update, no tool execution and no follow-up model call
+        if (cancellation.isCancelled()) {
+            return;
+        }
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
+            List<ToolExecutionRequest> toolExecutionRequests = aiMessage.toolExecutionRequests();
+            List<CompletableFuture<String>> toolExecutionResults = toolExecutionScheduler.submitAll(toolExecutionRequests);
+            for (int i = 0; i < toolExecutionRequests.size(); i++) {
+                ToolExecutionRequest toolExecutionRequest = toolExecutionRequests.get(i);
+                String toolExecutionResult = ToolExecutionScheduler.await(toolExecutionResults.get(i));
+                if (toolExecutionResult == null || cancellation.isCancelled()) {
+                    LOG.debug("Stream cancelled, skipping remaining tool executions");
+                    return;
+                }
                 ToolExecutionResultMessage toolExecutionResultMessage =
                         ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
                 addToMemory(toolExecutionResultMessage);
@@ -153,10 +192,15 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
                     TokenUsage.sum(tokenUsage, completeResponse.metadata().tokenUsage()),
                     toolSpecifications,
                     toolExecutors,
+                    toolLookup,
                     commonGuardrailParams,
-                    methodKey);
+                    methodKey,
+                    cancellation);
 
-            context.streamingChatModel.chat(chatRequest, handler);
+            if (cancellation.isCancelled()) {
+                return;
+            }
+            cancellation.runWithin(() -> context.streamingChatModel.chat(chatRequest, handler));
         } else {
             if (completeResponseHandler != null) {
                 ChatResponse finalChatResponse = ChatResponse.builder()
@@ -199,6 +243,14 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         }
     }
 
+    private String executeTool(ToolExecutionRequest request) {
+        if (cancellation.isCancelled()) {
+            return null;
+        }
+        ToolExecutor toolExecutor = toolExecutors.get(request.name());
+        return toolExecutor.execute(request, memoryId);
+    }
+
     private ChatMemory getMemory() {
         return getMemory(memoryId);
     }
@@ -217,6 +269,10 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onError(Throwable error) {
+        if (cancellation.isCancelled()) {
+            LOG.debug("Ignored error after cancellation", error);
+            return;
+        }
         if (errorHandler != null) {
             try {
                 errorHandler.accept(error);
@@ -1,5 +1,7 @@
 package dev.langchain4j.service;
 
+import com.xuenai.intelligent.ai.stream.StreamCancellation;
+import com.xuenai.intelligent.ai.tools.BaseTool;
 import dev.langchain4j.Internal;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
@@ -19,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static dev.langchain4j.internal.Utils.copy;
 import static dev.langchain4j.internal.ValidationUtils.ensureNotEmpty;
@@ -43,6 +46,9 @@ public class AiServiceTokenStream implements TokenStream {
     private Consumer<Throwable> errorHandler;
     private BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler;
     private BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler;
+    private Function<String, BaseTool> toolLookup = toolName -> null;
+
+    private final StreamCancellation cancellation = new StreamCancellation();
 
     private int onPartialResponseInvoked;
     private int onCompleteResponseInvoked;
@@ -88,6 +94,12 @@ public class AiServiceTokenStream implements TokenStream {
         return this;
     }
 
+    @Override
+    public TokenStream toolLookup(Function<String, BaseTool> toolLookup) {
+        this.toolLookup = ensureNotNull(toolLookup, "toolLookup");
+        return this;
+    }
+
     @Override
     public TokenStream onRetrieved(Consumer<List<Content>> contentsHandler) {
         this.contentsHandler = contentsHandler;
@@ -151,14 +163,21 @@ public class AiServiceTokenStream implements TokenStream {
                 new TokenUsage(),
                 toolSpecifications,
                 toolExecutors,
+                toolLookup,
                 commonGuardrailParams,
-                methodKey);
+                methodKey,
+                cancellation);
 
         if (contentsHandler != null && retrievedContents != null) {
             contentsHandler.accept(retrievedContents);
         }
 
-        context.streamingChatModel.chat(chatRequest, handler);
+        cancellation.runWithin(() -> context.streamingChatModel.chat(chatRequest, handler));
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
     }
 
     private void validateConfiguration() {
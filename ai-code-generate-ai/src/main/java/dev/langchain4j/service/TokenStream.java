@@ -1,5 +1,6 @@
 package dev.langchain4j.service;
 
+import com.xuenai.intelligent.ai.tools.BaseTool;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.rag.RetrievalAugmentor;
@@ -9,6 +10,7 @@ import dev.langchain4j.service.tool.ToolExecution;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Represents a token stream from the model to which you can subscribe and receive updates
@@ -31,6 +33,18 @@ public interface TokenStream {
 
     TokenStream onCompleteToolExecutionRequest(BiConsumer<Integer, ToolExecutionRequest> completedHandler);
 
+    /**
+     * Provides the tools by name, used to schedule the tool executions of each response: tools reporting distinct
+     * concurrency keys run in parallel, and tools supporting eager execution start while the response is still streaming.
+     * Without a lookup, tool executions run one after another once the response is complete.
+     *
+     * @param toolLookup function returning the tool registered under the given name, or {@code null}
+     * @return token stream instance used to configure or start stream processing
+     */
+    default TokenStream toolLookup(Function<String, BaseTool> toolLookup) {
+        return this;
+    }
+
     /**
      * The provided consumer will be invoked if any {@link Content}s are retrieved using {@link RetrievalAugmentor}.
      * <p>
@@ -80,4 +94,11 @@ public interface TokenStream {
      * Will send a request to LLM and start response streaming.
      */
     void start();
+
+    /**
+     * Cancels the stream: aborts the in-flight model HTTP stream and stops any further tool execution
+     * and follow-up model calls. Handlers will not be invoked after cancellation.
+     */
+    default void cancel() {
+    }
 }
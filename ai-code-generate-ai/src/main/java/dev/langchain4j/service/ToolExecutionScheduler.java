@@ -0,0 +1,124 @@
+package dev.langchain4j.service;
+
+import cn.hutool.json.JSONUtil;
+import com.xuenai.intelligent.ai.tools.BaseTool;
+import dev.langchain4j.Internal;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Schedules the tool executions of one model response.
+ * <p>
+ * Requests whose tools report distinct concurrency keys (e.g. writes to different files) run in parallel on
+ * virtual threads; requests sharing a key run in submission order, and requests without a key act as a barrier.
+ * <p>
+ * Tools that support eager execution may be submitted while the response is still streaming, as soon as their
+ * arguments are complete. Eager submission stops at the first request that is not eligible, so that the execution
+ * order never differs from the order in which the model emitted the calls.
+ * <p>
+ * Concurrency keys and eager support are read from the tools provided by the tool lookup; requests whose tool
+ * cannot be found act as a barrier.
+ */
+@Internal
+class ToolExecutionScheduler {
+
+    private static final ExecutorService TOOL_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Function<ToolExecutionRequest, String> executor;
+    private final Function<String, BaseTool> toolLookup;
+
+    private final List<CompletableFuture<String>> futures = new ArrayList<>();
+    private final Map<String, CompletableFuture<String>> lastByKey = new HashMap<>();
+    private final Map<String, CompletableFuture<String>> submittedById = new HashMap<>();
+    private CompletableFuture<?> barrier = CompletableFuture.completedFuture(null);
+    private boolean eagerStopped;
+
+    ToolExecutionScheduler(Function<ToolExecutionRequest, String> executor, Function<String, BaseTool> toolLookup) {
+        this.executor = executor;
+        this.toolLookup = toolLookup;
+    }
+
+    /**
+     * Submits a request whose arguments have been fully streamed, if its tool supports eager execution.
+     */
+    synchronized void submitEagerly(ToolExecutionRequest request) {
+        if (eagerStopped) {
+            return;
+        }
+        BaseTool tool = toolLookup.apply(request.name());
+        String key = concurrencyKey(tool, request);
+        if (request.id() == null || tool == null || key == null || !tool.supportsEagerExecution()) {
+            eagerStopped = true;
+            return;
+        }
+        submittedById.put(request.id(), submit(request, key));
+    }
+
+    /**
+     * Returns the executions of all requests of the completed response in request order, reusing the eager ones.
+     * A {@code null} result means the execution was skipped because the stream was cancelled.
+     */
+    synchronized List<CompletableFuture<String>> submitAll(List<ToolExecutionRequest> requests) {
+        eagerStopped = true;
+        List<CompletableFuture<String>> results = new ArrayList<>(requests.size());
+        if (requests.size() == 1 && submittedById.isEmpty()) {
+            results.add(CompletableFuture.completedFuture(executor.apply(requests.get(0))));
+            return results;
+        }
+        for (ToolExecutionRequest request : requests) {
+            CompletableFuture<String> eager = request.id() == null ? null : submittedById.get(request.id());
+            if (eager != null) {
+                results.add(eager);
+                continue;
+            }
+            results.add(submit(request, concurrencyKey(toolLookup.apply(request.name()), request)));
+        }
+        return results;
+    }
+
+    static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<String> submit(ToolExecutionRequest request, String key) {
+        CompletableFuture<?> dependency = key == null
+                ? CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                : lastByKey.getOrDefault(key, barrier);
+        CompletableFuture<String> future = dependency.handleAsync((ignored, error) -> executor.apply(request), TOOL_EXECUTOR);
+        if (key == null) {
+            barrier = future;
+            lastByKey.clear();
+        } else {
+            lastByKey.put(key, future);
+        }
+        futures.add(future);
+        return future;
+    }
+
+    private static String concurrencyKey(BaseTool tool, ToolExecutionRequest request) {
+        if (tool == null) {
+            return null;
+        }
+        try {
+            return tool.concurrencyKey(JSONUtil.parseObj(request.arguments()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
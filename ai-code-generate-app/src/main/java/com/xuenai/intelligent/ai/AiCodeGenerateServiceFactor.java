@@ -3,17 +3,23 @@ package com.xuenai.intelligent.ai;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.xuenai.intelligent.ai.guardrail.PromptSafetyInputGuardrail;
+import com.xuenai.intelligent.ai.memory.TokenBudgetChatMemory;
+import com.xuenai.intelligent.ai.memory.ToolCompactingChatMemoryStore;
 import com.xuenai.intelligent.ai.service.AiCodeGenerateService;
 import com.xuenai.intelligent.ai.tools.ToolManage;
+import com.xuenai.intelligent.ai.tools.ToolMessageCompactor;
+import com.xuenai.intelligent.config.ChatMemoryConfig;
 import com.xuenai.intelligent.custom.CustomRedisChatMemoryStore;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
 import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
 import com.xuenai.intelligent.service.ChatHistoryService;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -49,6 +55,12 @@ public class AiCodeGenerateServiceFactor {
     @Resource
     private ToolManage toolManage;
 
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
+    @Resource
+    private ToolMessageCompactor toolMessageCompactor;
+
 
 
     /**
@@ -94,6 +106,38 @@ public class AiCodeGenerateServiceFactor {
         return appId + "_" + generateType.getValue();
     }
 
+    /**
+     * 创建对话记忆的存储链，工具调用模式下压缩记忆中的工具参数与历史结果
+     *
+     * @param generateType 生成代码类型
+     * @return 存储链
+     */
+    private ChatMemoryStore buildChatMemoryStore(CodeGenerateTypeEnum generateType) {
+        return generateType == CodeGenerateTypeEnum.VUE_PROJECT
+                ? new ToolCompactingChatMemoryStore(customRedisChatMemoryStore, toolMessageCompactor)
+                : customRedisChatMemoryStore;
+    }
+
+    /**
+     * 创建对话记忆，配置了 token 预算的生成类型按预算压缩裁剪
+     *
+     * @param appId        应用 ID
+     * @param generateType 生成代码类型
+     * @param store        存储链
+     * @return 对话记忆
+     */
+    private ChatMemory buildChatMemory(long appId, CodeGenerateTypeEnum generateType, ChatMemoryStore store) {
+        int maxMessages = chatMemoryConfig.getMaxMessages();
+        Integer maxTokens = chatMemoryConfig.getTokenBudget().get(generateType);
+        if (maxTokens == null || maxTokens <= 0) {
+            return MessageWindowChatMemory.builder().id(appId).chatMemoryStore(store).maxMessages(maxMessages).build();
+        }
+        return TokenBudgetChatMemory.builder().id(appId).store(store).maxMessages(maxMessages).maxTokens(maxTokens)
+                // 单文件与多文件模式下每种语言只有一个文件
+                .languageIdentifiesFile(generateType != CodeGenerateTypeEnum.VUE_PROJECT)
+                .build();
+    }
+
     /**
      * 根据应用 ID 创建单独创建 AI 服务实例
      *
@@ -101,9 +145,10 @@ public class AiCodeGenerateServiceFactor {
      * @return ai 生成服务类
      */
     private AiCodeGenerateService createAiCodeGeneratorService(long appId, CodeGenerateTypeEnum generateType) {
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory.builder().id(appId).chatMemoryStore(customRedisChatMemoryStore).maxMessages(100).build();
-        // 加载历史对话到记忆中
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 100);
+        ChatMemoryStore store = buildChatMemoryStore(generateType);
+        ChatMemory chatMemory = buildChatMemory(appId, generateType, store);
+        // 加载历史对话到记忆中，经过与记忆相同的存储链写入
+        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory.id(), store, chatMemoryConfig.getMaxMessages());
         return switch (generateType) {
             case VUE_PROJECT ->
                 AiServices.builder(AiCodeGenerateService.class)
@@ -114,7 +159,8 @@ public class AiCodeGenerateServiceFactor {
                        .hallucinatedToolNameStrategy(toolExecutionRequest -> 
                                ToolExecutionResultMessage.from(toolExecutionRequest, "Error: there is no tol called " + toolExecutionRequest.name())
                        )
-                        .inputGuardrails(new PromptSafetyInputGuardrail())
+                        // 项目上下文是生成的代码，不属于用户输入，不参与护轨检查
+                        .inputGuardrails(new PromptSafetyInputGuardrail(ProjectContextBuilder::userText))
                         // 使用输出护轨可能会导致流式输出响应不及时，等到 AI 输出结束一起放回
 //                        .outputGuardrails(new RetryOutputGuardrail())
                         .build();
@@ -1,16 +1,22 @@
 package com.xuenai.intelligent.ai.builder;
 
 import cn.hutool.core.util.RuntimeUtil;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class VueProjectBuilder {
 
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 异步编译项目
      *
@@ -34,6 +40,13 @@ public class VueProjectBuilder {
      */
     public boolean buildProject(String projectPath) {
         projectPath = projectPath.replace("\\", "/");
+        // 工具写入的文件异步刷盘，构建前确保全部落盘
+        try {
+            projectFileSystem.flush(projectPath);
+        } catch (IOException e) {
+            log.error("项目文件未能全部写入磁盘，无法构建: {}, 错误: {}", projectPath, e.getMessage());
+            return false;
+        }
         File projectDir = new File(projectPath);
         if (!projectDir.exists() || !projectDir.isDirectory()) {
             log.error("项目目录不存在: {}", projectPath);
@@ -45,6 +58,15 @@ public class VueProjectBuilder {
             return false;
         }
         log.info("开始构建Vue项目: {}", projectPath);
+        try {
+            return doBuildProject(projectPath, projectDir);
+        } finally {
+            // 构建会生成 lock 等文件，淘汰快照以便下次从磁盘重新加载
+            projectFileSystem.evict(projectPath);
+        }
+    }
+
+    private boolean doBuildProject(String projectPath, File projectDir) {
         if (!executeNpmInstall(projectDir)) {
             log.error("npm install执行失败: {}", projectPath);
             return false;
@@ -0,0 +1,145 @@
+package com.xuenai.intelligent.ai.codec;
+
+import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式消息合并器
+ * 将连续的 AI 文本分片按"时间窗口 / 缓冲大小先到先刷新"的策略合并为一条消息，减少 SSE 帧数与写出次数；
+ * 工具展示、工作流进度等其他类型的消息作为边界，先刷新已缓冲的文本，再立即原样下发
+ */
+public class StreamMessageCoalescer {
+
+    private StreamMessageCoalescer() {
+    }
+
+    /**
+     * 合并流式消息
+     *
+     * @param source        原始消息流
+     * @param flushInterval 刷新时间窗口
+     * @param maxBufferSize 缓冲区字符数阈值
+     * @return 合并后的消息流
+     */
+    public static Flux<StreamMessage> coalesce(Flux<StreamMessage> source, Duration flushInterval, int maxBufferSize) {
+        if (flushInterval == null || flushInterval.isZero() || flushInterval.isNegative() || maxBufferSize <= 0) {
+            return source;
+        }
+        long intervalMillis = flushInterval.toMillis();
+        return Flux.create(sink -> {
+            CoalescingState state = new CoalescingState(sink, Schedulers.parallel(), intervalMillis, maxBufferSize);
+            Disposable upstream = source.subscribe(state::onNext, state::onError, state::onComplete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                state.cancelTimer();
+            });
+        });
+    }
+
+    /**
+     * 单个订阅的合并状态，所有对缓冲区的读写都在对象锁内完成，保证上游分片与定时刷新的顺序
+     */
+    private static class CoalescingState {
+
+        private final FluxSink<StreamMessage> sink;
+
+        private final Scheduler scheduler;
+
+        private final long intervalMillis;
+
+        private final int maxBufferSize;
+
+        private final StringBuilder buffer;
+
+        private Disposable timer;
+
+        private boolean terminated;
+
+        CoalescingState(FluxSink<StreamMessage> sink, Scheduler scheduler, long intervalMillis, int maxBufferSize) {
+            this.sink = sink;
+            this.scheduler = scheduler;
+            this.intervalMillis = intervalMillis;
+            this.maxBufferSize = maxBufferSize;
+            this.buffer = new StringBuilder(maxBufferSize);
+        }
+
+        synchronized void onNext(StreamMessage message) {
+            if (terminated) {
+                return;
+            }
+            // 仅合并普通 AI 文本，子类（如工具展示消息）及其他类型均视为边界
+            if (message.getClass() != AiResponseMessage.class) {
+                flush();
+                sink.next(message);
+                return;
+            }
+            String data = ((AiResponseMessage) message).getData();
+            if (data == null || data.isEmpty()) {
+                return;
+            }
+            buffer.append(data);
+            if (buffer.length() >= maxBufferSize) {
+                flush();
+            } else if (timer == null) {
+                timer = scheduler.schedule(this::onTimer, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void onError(Throwable error) {
+            if (terminated) {
+                return;
+            }
+            flush();
+            terminated = true;
+            sink.error(error);
+        }
+
+        synchronized void onComplete() {
+            if (terminated) {
+                return;
+            }
+            flush();
+            terminated = true;
+            sink.complete();
+        }
+
+        synchronized void cancelTimer() {
+            terminated = true;
+            buffer.setLength(0);
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+        }
+
+        private synchronized void onTimer() {
+            timer = null;
+            if (!terminated) {
+                flush();
+            }
+        }
+
+        /**
+         * 下发缓冲区内容并取消待执行的定时刷新
+         */
+        private void flush() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            if (buffer.isEmpty()) {
+                return;
+            }
+            sink.next(new AiResponseMessage(buffer.toString()));
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.xuenai.intelligent.ai.codec;
+
+import com.xuenai.aicodegenerate.exception.BusinessException;
+import com.xuenai.aicodegenerate.exception.ErrorCode;
+import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.mode.message.WorkflowProgressMessage;
+
+/**
+ * 流式消息编解码器
+ * 在 SSE 出口处将类型化的 {@link StreamMessage} 一次性编码为前端协议 {"d": chunk}，
+ * 按类型手写拼接 JSON，不经过反射序列化
+ */
+public class StreamMessageCodec {
+
+    /**
+     * 控制字符转义表（0x00 - 0x1F），null 表示无需转义
+     */
+    private static final String[] CONTROL_ESCAPES = new String[32];
+
+    static {
+        for (int i = 0; i < CONTROL_ESCAPES.length; i++) {
+            CONTROL_ESCAPES[i] = String.format("\\u%04x", i);
+        }
+        CONTROL_ESCAPES['\b'] = "\\b";
+        CONTROL_ESCAPES['\t'] = "\\t";
+        CONTROL_ESCAPES['\n'] = "\\n";
+        CONTROL_ESCAPES['\f'] = "\\f";
+        CONTROL_ESCAPES['\r'] = "\\r";
+    }
+
+    private StreamMessageCodec() {
+    }
+
+    /**
+     * 编码为 SSE data 内容
+     * 前端接收逻辑: response.d 为 AI 文本；进度消息的 response.d 为 JSON 字符串 { type, content, step }
+     *
+     * @param message 流式消息
+     * @return {"d": chunk} 格式的 JSON 字符串
+     */
+    public static String encode(StreamMessage message) {
+        return switch (message) {
+            case AiResponseMessage aiMessage -> wrap(aiMessage.getData());
+            case WorkflowProgressMessage progressMessage -> wrap(encodeProgress(progressMessage));
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持编码的消息类型: " + message.getType());
+        };
+    }
+
+    /**
+     * 编码工作流进度消息本体
+     *
+     * @param message 进度消息
+     * @return {"type":..,"content":..,"step":..} 格式的 JSON 字符串
+     */
+    public static String encodeProgress(WorkflowProgressMessage message) {
+        String content = message.getContent();
+        StringBuilder builder = new StringBuilder(48 + (content == null ? 0 : content.length()));
+        builder.append("{\"type\":");
+        appendQuoted(builder, message.getType());
+        builder.append(",\"content\":");
+        appendQuoted(builder, content);
+        builder.append(",\"step\":").append(message.getStep() == null ? 0 : message.getStep());
+        builder.append('}');
+        return builder.toString();
+    }
+
+    /**
+     * 包装为 {"d": chunk}
+     */
+    private static String wrap(String chunk) {
+        StringBuilder builder = new StringBuilder(8 + (chunk == null ? 0 : chunk.length() + (chunk.length() >> 3)));
+        builder.append("{\"d\":");
+        appendQuoted(builder, chunk);
+        builder.append('}');
+        return builder.toString();
+    }
+
+    /**
+     * 以 JSON 字符串字面量的形式追加内容
+     *
+     * @param builder 目标
+     * @param value   原始字符串，null 输出为 null
+     */
+    static void appendQuoted(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c < 32) {
+                escape = CONTROL_ESCAPES[c];
+            } else if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == 0x2028) {
+                escape = "\\u2028";
+            } else if (c == 0x2029) {
+                escape = "\\u2029";
+            } else {
+                continue;
+            }
+            // 批量追加未转义的片段，减少逐字符 append
+            if (start < i) {
+                builder.append(value, start, i);
+            }
+            builder.append(escape);
+            start = i + 1;
+        }
+        if (start < length) {
+            builder.append(value, start, length);
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,362 @@
+package com.xuenai.intelligent.ai.context;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
+import com.xuenai.intelligent.ai.tools.FileReadTool;
+import com.xuenai.intelligent.config.ProjectContextConfig;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工程项目上下文构建
+ * 对已有工程项目的修改请求，在调用模型前为项目建立轻量索引（文件路径、路由、标识符与文本），
+ * 按 BM25 对用户需求打分，把最相关文件的内容连同项目文件列表附在用户消息前，省去模型读取目录和文件的工具调用轮次
+ */
+@Slf4j
+@Component
+public class ProjectContextBuilder {
+
+    /**
+     * 上下文起止标记，历史轮次的上下文据此压缩
+     */
+    public static final String CONTEXT_START = "<project-context>";
+
+    public static final String CONTEXT_END = "</project-context>";
+
+    /**
+     * 参与检索的文本文件扩展名
+     */
+    private static final Set<String> INDEXED_EXTENSIONS = Set.of("vue", "js", "ts", "jsx", "tsx", "css", "scss", "less", "html", "json");
+
+    /**
+     * 超过该大小的文件不参与检索（通常是打包产物或数据文件）
+     */
+    private static final int MAX_INDEXED_FILE_BYTES = 256 * 1024;
+
+    /**
+     * BM25 参数
+     */
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    /**
+     * 路径与路由的词项权重，命中文件名比命中正文更能说明相关
+     */
+    private static final int PATH_WEIGHT = 3;
+
+    private static final Pattern STATIC_IMPORT_PATTERN = Pattern.compile("import\\s+(\\w+)\\s+from\\s+['\"]([^'\"]+\\.vue)['\"]");
+
+    private static final Pattern ROUTE_PATH_PATTERN = Pattern.compile("\\bpath\\s*:\\s*['\"]([^'\"]*)['\"]");
+
+    private static final Pattern ROUTE_NAME_PATTERN = Pattern.compile("\\bname\\s*:\\s*['\"]([^'\"]*)['\"]");
+
+    private static final Pattern ROUTE_COMPONENT_PATTERN = Pattern.compile("\\bcomponent\\s*:\\s*(?:\\(\\)\\s*=>\\s*import\\(\\s*['\"]([^'\"]+\\.vue)['\"]\\s*\\)|(\\w+))");
+
+    private static final Pattern CAMEL_CASE_PATTERN = Pattern.compile("(?<=[a-z0-9])(?=[A-Z])");
+
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
+    @Resource
+    private ProjectContextConfig projectContextConfig;
+
+    /**
+     * 单个文件的索引
+     */
+    private static class IndexedFile {
+
+        private final String path;
+
+        private final String content;
+
+        private final Map<String, Integer> termFrequencies = new HashMap<>();
+
+        private int length;
+
+        private double score;
+
+        private IndexedFile(String path, String content) {
+            this.path = path;
+            this.content = content;
+        }
+
+        private void addTerms(List<String> terms, int weight) {
+            for (String term : terms) {
+                termFrequencies.merge(term, weight, Integer::sum);
+            }
+            length += terms.size() * weight;
+        }
+    }
+
+    /**
+     * 为用户消息附加项目上下文
+     *
+     * @param appId       应用 ID
+     * @param userMessage 用户消息
+     * @return 附加上下文后的用户消息；新项目或没有相关文件时原样返回
+     */
+    public String buildPrompt(Long appId, String userMessage) {
+        // 用户输入中的上下文标记会被当作系统附加的内容而跳过护轨检查，先去除
+        userMessage = StrUtil.removeAll(userMessage, CONTEXT_START, CONTEXT_END);
+        if (!projectContextConfig.isEnabled() || StrUtil.isBlank(userMessage)) {
+            return userMessage;
+        }
+        try {
+            String context = buildContext(appId, userMessage);
+            return context == null ? userMessage : context + "\n\n" + userMessage;
+        } catch (Exception e) {
+            // 上下文只是优化，失败时退回由模型自行读取
+            log.warn("构建项目上下文失败, appId: {}, 错误: {}", appId, e.getMessage());
+            return userMessage;
+        }
+    }
+
+    /**
+     * 将消息中附带的项目上下文替换为占位说明，用于压缩历史轮次
+     *
+     * @param text 用户消息
+     * @return 压缩后的消息，没有上下文时返回 null
+     */
+    public static String stripContext(String text) {
+        if (text == null || !text.startsWith(CONTEXT_START)) {
+            return null;
+        }
+        int end = text.indexOf(CONTEXT_END);
+        if (end < 0) {
+            return null;
+        }
+        return "[已压缩] 历史轮次附带的项目上下文已省略" + text.substring(end + CONTEXT_END.length());
+    }
+
+    /**
+     * 去除消息中附带的项目上下文，只保留用户输入的部分，用于输入护轨检查
+     *
+     * @param text 用户消息
+     * @return 用户输入的部分，没有上下文时原样返回
+     */
+    public static String userText(String text) {
+        if (text == null || !text.startsWith(CONTEXT_START)) {
+            return text;
+        }
+        int end = text.indexOf(CONTEXT_END);
+        return end < 0 ? text : text.substring(end + CONTEXT_END.length()).strip();
+    }
+
+    private String buildContext(Long appId, String userMessage) throws IOException {
+        if (!projectFileSystem.isDirectory(appId, "")) {
+            return null;
+        }
+        List<String> paths = projectFileSystem.list(appId, "");
+        if (paths.isEmpty()) {
+            return null;
+        }
+        List<IndexedFile> files = index(appId, paths);
+        List<IndexedFile> relevant = rank(files, tokenize(userMessage));
+        StringBuilder sb = new StringBuilder();
+        sb.append(CONTEXT_START).append("\n");
+        sb.append("以下是系统根据本次需求预先检索的项目信息，文件内容均为当前最新版本，可直接据此修改，无需再读取目录或这些文件；未附带的文件仍可按需读取。\n");
+        sb.append("项目文件（共 ").append(paths.size()).append(" 个）：\n");
+        int maxListedFiles = projectContextConfig.getMaxListedFiles();
+        paths.stream().limit(maxListedFiles).forEach(path -> sb.append(path).append("\n"));
+        if (paths.size() > maxListedFiles) {
+            sb.append("...（其余 ").append(paths.size() - maxListedFiles).append(" 个文件省略）\n");
+        }
+        long remaining = projectContextConfig.getMaxContentSize().toBytes();
+        for (IndexedFile file : relevant) {
+            List<String> lines = file.content.lines().toList();
+            int bytes = file.content.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes <= remaining) {
+                sb.append("\n相关文件 ").append(file.path).append("（共 ").append(lines.size()).append(" 行）：\n");
+                sb.append("```").append(FileUtil.getSuffix(file.path)).append("\n").append(file.content);
+                if (!file.content.endsWith("\n")) {
+                    sb.append("\n");
+                }
+                sb.append("```\n");
+                remaining -= bytes;
+                continue;
+            }
+            String outline = FileReadTool.outline(file.path, lines);
+            int outlineBytes = outline.getBytes(StandardCharsets.UTF_8).length;
+            if (outlineBytes <= remaining) {
+                sb.append("\n相关文件（内容较大，仅附大纲，按行号读取需要的部分）：\n").append(outline);
+                remaining -= outlineBytes;
+            }
+        }
+        sb.append(CONTEXT_END);
+        log.info("构建项目上下文, appId: {}, 文件数: {}, 相关文件: {}", appId, paths.size(),
+                relevant.stream().map(file -> file.path).toList());
+        return sb.toString();
+    }
+
+    /**
+     * 建立索引：路径与正文分词，路由配置中的路径与名称计入对应组件
+     */
+    private List<IndexedFile> index(Long appId, List<String> paths) throws IOException {
+        Map<String, IndexedFile> files = new HashMap<>();
+        for (String path : paths) {
+            if (!INDEXED_EXTENSIONS.contains(FileUtil.getSuffix(path).toLowerCase())) {
+                continue;
+            }
+            String content = projectFileSystem.read(appId, path);
+            if (content == null || content.length() > MAX_INDEXED_FILE_BYTES) {
+                continue;
+            }
+            IndexedFile file = new IndexedFile(path, content);
+            file.addTerms(tokenize(path), PATH_WEIGHT);
+            file.addTerms(tokenize(content), 1);
+            files.put(path, file);
+        }
+        for (IndexedFile file : files.values()) {
+            if (file.content.contains("createRouter") || file.content.contains("routes")) {
+                indexRoutes(file, files);
+            }
+        }
+        return new ArrayList<>(files.values());
+    }
+
+    /**
+     * 解析路由配置，把路由的 path 与 name 作为词项加到对应的页面组件上
+     */
+    private static void indexRoutes(IndexedFile router, Map<String, IndexedFile> files) {
+        String routerDir = router.path.contains("/") ? router.path.substring(0, router.path.lastIndexOf('/')) : "";
+        Map<String, String> importedComponents = new HashMap<>();
+        Matcher importMatcher = STATIC_IMPORT_PATTERN.matcher(router.content);
+        while (importMatcher.find()) {
+            importedComponents.put(importMatcher.group(1), importMatcher.group(2));
+        }
+        List<String> routeTerms = new ArrayList<>();
+        for (String line : router.content.lines().toList()) {
+            Matcher pathMatcher = ROUTE_PATH_PATTERN.matcher(line);
+            if (pathMatcher.find()) {
+                routeTerms = new ArrayList<>(tokenize(pathMatcher.group(1)));
+            }
+            Matcher nameMatcher = ROUTE_NAME_PATTERN.matcher(line);
+            if (nameMatcher.find()) {
+                routeTerms.addAll(tokenize(nameMatcher.group(1)));
+            }
+            Matcher componentMatcher = ROUTE_COMPONENT_PATTERN.matcher(line);
+            if (!componentMatcher.find()) {
+                continue;
+            }
+            String specifier = componentMatcher.group(1) != null
+                    ? componentMatcher.group(1)
+                    : importedComponents.get(componentMatcher.group(2));
+            IndexedFile component = specifier == null ? null : files.get(resolveImport(routerDir, specifier));
+            if (component != null && !routeTerms.isEmpty()) {
+                component.addTerms(routeTerms, PATH_WEIGHT);
+            }
+            routeTerms = new ArrayList<>();
+        }
+    }
+
+    private static String resolveImport(String fromDir, String specifier) {
+        if (specifier.startsWith("@/")) {
+            return "src/" + specifier.substring(2);
+        }
+        return Paths.get(fromDir).resolve(specifier).normalize().toString().replace('\\', '/');
+    }
+
+    /**
+     * BM25 打分，返回得分最高的若干文件
+     */
+    private List<IndexedFile> rank(List<IndexedFile> files, List<String> queryTerms) {
+        if (files.isEmpty() || queryTerms.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        double totalLength = 0;
+        for (IndexedFile file : files) {
+            file.termFrequencies.keySet().forEach(term -> documentFrequencies.merge(term, 1, Integer::sum));
+            totalLength += file.length;
+        }
+        double averageLength = Math.max(totalLength / files.size(), 1);
+        Set<String> uniqueTerms = new HashSet<>(queryTerms);
+        for (IndexedFile file : files) {
+            double score = 0;
+            for (String term : uniqueTerms) {
+                Integer frequency = file.termFrequencies.get(term);
+                if (frequency == null) {
+                    continue;
+                }
+                int df = documentFrequencies.get(term);
+                double idf = Math.log(1 + (files.size() - df + 0.5) / (df + 0.5));
+                score += idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * file.length / averageLength));
+            }
+            file.score = score;
+        }
+        return files.stream()
+                .filter(file -> file.score > 0)
+                .sorted(Comparator.comparingDouble((IndexedFile file) -> file.score).reversed())
+                .limit(projectContextConfig.getMaxFiles())
+                .toList();
+    }
+
+    /**
+     * 分词：英文按非字母数字与驼峰拆分并转小写，同时保留完整标识符；中文按相邻两字切分
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                word.append(c);
+                flushCjk(cjk, terms);
+                continue;
+            }
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                cjk.append(c);
+                flushWord(word, terms);
+                continue;
+            }
+            flushWord(word, terms);
+            flushCjk(cjk, terms);
+        }
+        return terms;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> terms) {
+        if (word.length() < 2) {
+            word.setLength(0);
+            return;
+        }
+        String identifier = word.toString();
+        terms.add(identifier.toLowerCase());
+        String[] parts = CAMEL_CASE_PATTERN.split(identifier);
+        if (parts.length > 1) {
+            for (String part : parts) {
+                if (part.length() >= 2) {
+                    terms.add(part.toLowerCase());
+                }
+            }
+        }
+        word.setLength(0);
+    }
+
+    private static void flushCjk(StringBuilder cjk, List<String> terms) {
+        if (cjk.length() == 1) {
+            terms.add(cjk.toString());
+        }
+        for (int i = 0; i + 1 < cjk.length(); i++) {
+            terms.add(cjk.substring(i, i + 2));
+        }
+        cjk.setLength(0);
+    }
+}
@@ -1,17 +1,20 @@
 package com.xuenai.intelligent.ai.core;
 
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.StrUtil;
 import com.xuenai.intelligent.ai.AiCodeGenerateServiceFactor;
+import com.xuenai.intelligent.ai.context.ProjectContextBuilder;
 import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import com.xuenai.intelligent.ai.mode.message.ToolExecutedMessage;
 import com.xuenai.intelligent.ai.mode.message.ToolRequestMessage;
 import com.xuenai.intelligent.ai.mode.result.HtmlCodeResult;
 import com.xuenai.intelligent.ai.mode.result.MultiFileCodeResult;
 import com.xuenai.intelligent.ai.mode.result.ProjectInfoResult;
-import com.xuenai.intelligent.ai.parser.CodeParserExecutor;
+import com.xuenai.intelligent.ai.parser.CodeFenceStreamParser;
 import com.xuenai.intelligent.ai.saver.CodeFileSaverExecutor;
 import com.xuenai.intelligent.ai.service.AiCodeGenerateService;
 import com.xuenai.intelligent.ai.service.AiProjectInfoService;
+import com.xuenai.intelligent.ai.tools.ToolManage;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
 import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
@@ -24,6 +27,9 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * AI 代码生成外观类，组合生成和保存的功能
@@ -38,6 +44,12 @@ public class AiCodeGenerateFacade {
     @Resource
     private AiProjectInfoService aiProjectInfoService;
 
+    @Resource
+    private ProjectContextBuilder projectContextBuilder;
+
+    @Resource
+    private ToolManage toolManage;
+
     /**
      * 统一对外提供的方法，生成并保存文件
      *
@@ -73,24 +85,28 @@ public class AiCodeGenerateFacade {
      * @param userMessage 提示词
      * @param typeEnum    生成文件类型
      * @param appId       应用 ID
-     * @return 生成文件
+     * @return 类型化的流式消息（AI 响应、工具调用、工具执行结果）
      */
-    public Flux<String> generateStreamAndSaveCode(String userMessage, CodeGenerateTypeEnum typeEnum, Long appId) {
+    public Flux<StreamMessage> generateStreamAndSaveCode(String userMessage, CodeGenerateTypeEnum typeEnum, Long appId) {
         if (typeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }   
         AiCodeGenerateService aiCodeGenerateService = aiCodeGenerateServiceFactor.getAiCodeGeneratorService(appId,typeEnum);
         return switch (typeEnum) {
             case HTML -> {
-                Flux<String> result = aiCodeGenerateService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(result, typeEnum, appId);
+                Flux<String> result = toTextFlux(aiCodeGenerateService.generateHtmlCodeStream(userMessage));
+                yield processCodeStream(result, typeEnum, appId).map(AiResponseMessage::new);
             }
             case MULTI_FILE -> {
-                Flux<String> result = aiCodeGenerateService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(result, typeEnum, appId);
+                Flux<String> result = toTextFlux(aiCodeGenerateService.generateMultiFileCodeStream(userMessage));
+                yield processCodeStream(result, typeEnum, appId).map(AiResponseMessage::new);
             }
             case VUE_PROJECT -> {
-                TokenStream tokenStream = aiCodeGenerateService.generateVueProjectCodeStream(appId,userMessage);
+                // 修改已有项目时预先附带相关文件，省去模型探索项目的工具调用轮次
+                String prompt = projectContextBuilder.buildPrompt(appId, userMessage);
+                // 按工具声明的并发键调度工具调用
+                TokenStream tokenStream = aiCodeGenerateService.generateVueProjectCodeStream(appId, prompt)
+                        .toolLookup(toolManage::getTool);
                 yield processTokenStream(tokenStream);
             }
             default -> {
@@ -112,6 +128,8 @@ public class AiCodeGenerateFacade {
 
     /**
      * 通用流式代码处理
+     * 边接收边解析代码块，每个代码块的围栏闭合后立即保存；
+     * 样式与脚本依附于 HTML，在 HTML 代码块保存之前暂存，没有 HTML 时不保存任何文件
      *
      * @param codeStream    流式代码
      * @param generatorType 生成类型
@@ -119,36 +137,82 @@ public class AiCodeGenerateFacade {
      * @return 流式响应
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenerateTypeEnum generatorType, Long appId) {
-        StringBuilder builder = new StringBuilder();
-        return codeStream.doOnNext(builder::append).doOnComplete(() -> {
-            try {
-                String result = builder.toString();
-                Object parserResult = CodeParserExecutor.executeParser(result, generatorType);
-                File file = CodeFileSaverExecutor.executorSaverCode(parserResult, generatorType, appId);
-                log.info("代码保存成功: {}", file.getAbsolutePath());
-            } catch (Exception e) {
-                log.error("代码保存失败: {}", e.getMessage());
+        AtomicBoolean htmlSaved = new AtomicBoolean();
+        Map<String, String> pendingBlocks = new LinkedHashMap<>();
+        CodeFenceStreamParser parser = new CodeFenceStreamParser((language, code) -> {
+            if (!CodeFenceStreamParser.LANGUAGE_HTML.equals(language) && !htmlSaved.get()) {
+                pendingBlocks.put(language, code);
+                return;
+            }
+            saveCodeBlock(language, code, generatorType, appId);
+            if (CodeFenceStreamParser.LANGUAGE_HTML.equals(language)) {
+                htmlSaved.set(true);
+                pendingBlocks.forEach((pendingLanguage, pendingCode) -> saveCodeBlock(pendingLanguage, pendingCode, generatorType, appId));
+                pendingBlocks.clear();
+            }
+        }, generatorType == CodeGenerateTypeEnum.HTML);
+        return codeStream.doOnNext(parser::append).doOnComplete(() -> {
+            parser.finish();
+            if (htmlSaved.get()) {
+                return;
+            }
+            // 如果没有找到非空的 HTML 代码块，HTML 模式将整个内容作为 HTML
+            String rawContent = parser.getRawContent();
+            if (generatorType == CodeGenerateTypeEnum.HTML && StrUtil.isNotBlank(rawContent)) {
+                saveCodeBlock(CodeFenceStreamParser.LANGUAGE_HTML, rawContent.trim(), generatorType, appId);
+            } else {
+                log.warn("未生成 HTML 代码块，本次生成不保存任何文件, appId: {}, 丢弃的代码块: {}", appId, pendingBlocks.keySet());
             }
         });
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 保存单个代码块，保存失败不影响流式输出
+     */
+    private void saveCodeBlock(String language, String code, CodeGenerateTypeEnum generatorType, Long appId) {
+        try {
+            File file = CodeFileSaverExecutor.executorSaverCodeBlock(language, code, generatorType, appId);
+            if (file != null) {
+                log.info("代码保存成功: {}", file.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            log.error("代码保存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将 TokenStream 转换为纯文本 Flux，下游取消时中止模型调用
      *
      * @param tokenStream TokenStream 对象
      * @return Flux<String> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream) {
+    private Flux<String> toTextFlux(TokenStream tokenStream) {
+        return Flux.create(sink -> {
+            sink.onCancel(tokenStream::cancel);
+            tokenStream.onPartialResponse(sink::next)
+                    .onCompleteResponse(response -> sink.complete())
+                    .onError(sink::error)
+                    .start();
+        });
+    }
+
+    /**
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
+     * 直接下发类型化消息，序列化统一在 SSE 出口处完成
+     *
+     * @param tokenStream TokenStream 对象
+     * @return Flux<StreamMessage> 流式响应
+     */
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream) {
         return Flux.create(sink -> {
+            // 下游取消（客户端断开）时中止模型调用与工具循环
+            sink.onCancel(tokenStream::cancel);
             tokenStream.onPartialResponse((String partialResponse) -> {
-                AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                sink.next(new AiResponseMessage(partialResponse));
             }).onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                sink.next(new ToolRequestMessage(toolExecutionRequest));
             }).onToolExecuted((ToolExecution toolExecution) -> {
-                ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                sink.next(new ToolExecutedMessage(toolExecution));
             }).onCompleteResponse((ChatResponse response) -> {
                 sink.complete();
             }).onError((Throwable error) -> {
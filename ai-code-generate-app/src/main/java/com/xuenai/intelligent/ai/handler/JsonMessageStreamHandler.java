@@ -1,11 +1,11 @@
 package com.xuenai.intelligent.ai.handler;
 
-import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.xuenai.intelligent.ai.builder.VueProjectBuilder;
 import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
 import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.mode.message.ToolDisplayMessage;
 import com.xuenai.intelligent.ai.mode.message.ToolExecutedMessage;
 import com.xuenai.intelligent.ai.mode.message.ToolRequestMessage;
 import com.xuenai.intelligent.ai.tools.BaseTool;
@@ -13,7 +13,6 @@ import com.xuenai.intelligent.ai.tools.ToolManage;
 import com.xuenai.aicodegenerate.constant.AppConstant;
 import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.enums.ChatHistoryMessageTypeEnum;
-import com.xuenai.aicodegenerate.model.enums.StreamMessageTypeEnum;
 import com.xuenai.intelligent.service.ChatHistoryService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -39,7 +38,7 @@ public class JsonMessageStreamHandler {
 
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 将类型化消息重组为完整的响应格式
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -47,10 +46,10 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
+    public Flux<StreamMessage> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
         StringBuilder chatHistoryStringBuilder = new StringBuilder();
         Set<String> seenToolIds = new HashSet<>();
-        return originFlux.map(chunk -> handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds)).filter(StrUtil::isNotEmpty)
+        return originFlux.mapNotNull(message -> handleJsonMessageChunk(message, chatHistoryStringBuilder, seenToolIds))
                 .doOnComplete(() -> {
                     String aiResponse = chatHistoryStringBuilder.toString();
                     chatHistoryService.createChatHistory(appId, loginUser.getId(), aiResponse, ChatHistoryMessageTypeEnum.AI.getValue());
@@ -63,46 +62,40 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 收集 TokenStream 数据，返回需要下发给前端的消息（无需下发时返回 null）
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
+    private StreamMessage handleJsonMessageChunk(StreamMessage message, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        switch (message) {
+            case AiResponseMessage aiMessage -> {
                 String data = aiMessage.getData();
+                if (data == null || data.isEmpty()) {
+                    return null;
+                }
                 chatHistoryStringBuilder.append(data);
-                return data;
+                return aiMessage;
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case ToolRequestMessage toolRequestMessage -> {
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
-                if (toolId != null && !seenToolIds.contains(toolId)) {
-                    seenToolIds.add(toolId);
+                if (toolId != null && seenToolIds.add(toolId)) {
                     BaseTool tool = toolManage.getTool(toolName);
-                    return tool.generateToolRequestResponse();
-                } else {
-                    return "";
+                    return new ToolDisplayMessage(tool.generateToolRequestResponse());
                 }
+                return null;
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage -> {
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 String toolName = toolExecutedMessage.getName();
                 BaseTool tool = toolManage.getTool(toolName);
                 String result = tool.generateToolExecutedResult(jsonObject);
                 String output = String.format("\n\n%s\n\n", result);
                 chatHistoryStringBuilder.append(output);
-                return output;
+                return new ToolDisplayMessage(output);
             }
             default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
+                log.error("不支持的消息类型: {}", message.getType());
+                return null;
             }
         }
     }
 }
-
@@ -1,6 +1,8 @@
 package com.xuenai.intelligent.ai.handler;
 
 import com.xuenai.aicodegenerate.model.entity.User;
+import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import com.xuenai.aicodegenerate.model.enums.ChatHistoryMessageTypeEnum;
 import com.xuenai.intelligent.service.ChatHistoryService;
 import lombok.extern.slf4j.Slf4j;
@@ -25,12 +27,13 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
+    public Flux<StreamMessage> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
-        return originFlux.map(chunk -> {
+        return originFlux.doOnNext(message -> {
             // 收集AI响应内容
-            aiResponseBuilder.append(chunk);
-            return chunk;
+            if (message instanceof AiResponseMessage aiMessage) {
+                aiResponseBuilder.append(aiMessage.getData());
+            }
         }).doOnComplete(() -> {
             // 流式响应完成后，添加AI消息到对话历史
             String aiResponse = aiResponseBuilder.toString();
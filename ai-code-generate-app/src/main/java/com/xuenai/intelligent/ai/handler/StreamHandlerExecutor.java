@@ -2,6 +2,7 @@ package com.xuenai.intelligent.ai.handler;
 
 import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import com.xuenai.intelligent.service.ChatHistoryService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -35,7 +36,7 @@ public class StreamHandlerExecutor {
      * @param generateTypeEnum   代码生成类型
      * @return 处理后的流
      */
-    public Flux<String> doExecute(Flux<String> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser, CodeGenerateTypeEnum generateTypeEnum) {
+    public Flux<StreamMessage> doExecute(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser, CodeGenerateTypeEnum generateTypeEnum) {
         return switch (generateTypeEnum) {
             case VUE_PROJECT -> jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
             case HTML, MULTI_FILE -> simpleTextStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
@@ -51,8 +52,17 @@ public class StreamHandlerExecutor {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> doExecuteWorkflow(Flux<String> workflowFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
+    public Flux<StreamMessage> doExecuteWorkflow(Flux<StreamMessage> workflowFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
         return workflowStreamHandler.handle(workflowFlux, chatHistoryService, appId, loginUser);
     }
-}
 
+    /**
+     * 观看进行中的工作流输出，不记录聊天历史
+     *
+     * @param workflowFlux 工作流产生的流
+     * @return 处理后的流
+     */
+    public Flux<StreamMessage> doWatchWorkflow(Flux<StreamMessage> workflowFlux) {
+        return workflowStreamHandler.watch(workflowFlux);
+    }
+}
@@ -5,12 +5,18 @@ import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.enums.ChatHistoryMessageTypeEnum;
+import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.mode.message.ToolExecutedMessage;
+import com.xuenai.intelligent.ai.mode.message.ToolRequestMessage;
+import com.xuenai.intelligent.ai.mode.message.WorkflowProgressMessage;
 import com.xuenai.intelligent.service.ChatHistoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,7 +28,7 @@ import java.util.regex.Pattern;
 /**
  * 工作流专用流处理器
  * 实时透传所有数据给前端
- * 识别并提取工作流进度 JSON -> 存入 thinking_content
+ * 识别工作流进度与工具调用消息 -> 存入 thinking_content
  * 识别并提取 DeepSeek 思考标签 -> 存入 thinking_content
  * 提取纯净代码 -> 存入 message
  */
@@ -33,7 +39,7 @@ public class WorkflowStreamHandler {
     // 正则匹配 DeepSeek 的 <think> 标签内容
     private static final Pattern THINK_PATTERN = Pattern.compile("<think>(.*?)</think>", Pattern.DOTALL);
 
-    public Flux<String> handle(Flux<String> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
+    public Flux<StreamMessage> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser) {
         StringBuilder finalContentBuilder = new StringBuilder();
         List<Map<String, Object>> thinkingSteps = new CopyOnWriteArrayList<>();
         StringBuilder tempBuffer = new StringBuilder();
@@ -41,82 +47,14 @@ public class WorkflowStreamHandler {
         Set<String> seenToolIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
         //  缓存 tool_executed 的 ID，防止结果也重复刷
         Set<String> seenExecutedIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
-        return originFlux.flatMap(chunk -> {
-            if (isToolJson(chunk)) {
-                try {
-                    JSONObject toolJson = JSONUtil.parseObj(chunk);
-                    String type = toolJson.getStr("type");
-                    String id = toolJson.getStr("id");
-                    String displayContent = null;
-
-                    if ("tool_request".equals(type)) {
-                        // 去重逻辑
-                        if (StrUtil.isNotBlank(id) && !seenToolIds.contains(id)) {
-                            seenToolIds.add(id);
-                            String name = toolJson.getStr("name");
-                            // 解析参数，提取文件名
-                            String fileInfo = extractFileInfo(toolJson.getStr("arguments"));
-                            displayContent = "调用工具: " + name + (StrUtil.isNotBlank(fileInfo) ? " (" + fileInfo + ")" : "");
-                        }
-                    } else if ("tool_executed".equals(type)) {
-                        // 结果去重
-                        String callId = toolJson.getStr("tool_call_id");
-                        String uniqueKey = StrUtil.isNotBlank(callId) ? callId : String.valueOf(chunk.hashCode());
-                        if (!seenExecutedIds.contains(uniqueKey)) {
-                            seenExecutedIds.add(uniqueKey);
-                            String result = toolJson.getStr("result");
-                            // 截断过长的结果
-                            if (result != null && result.length() > 50) result = result.substring(0, 50) + "...";
-                            displayContent = "工具执行完成: " + result;
-                        }
-                    }
-
-                    // 如果生成了显示内容，则记录步骤并发送前端
-                    if (displayContent != null) {
-                        Map<String, Object> step = Map.of(
-                                "type", "processing",
-                                "content", displayContent,
-                                "step", 999
-                        );
-                        thinkingSteps.add(step);
-                        // 发送 JSON 给前端更新状态
-                        return Flux.just(JSONUtil.toJsonStr(step));
-                    } else {
-                        return Flux.empty();
-                    }
-
-                } catch (Exception e) {
-                    log.error("解析工具JSON失败: {}", chunk, e);
-                    // 解析失败也不要抛出异常中断流，当作普通文本处理或者忽略
-                    return Flux.empty();
-                }
-            }
-
-            // 拦截 AI 响应 JSON (ai_response)
-            if (isAiResponseJson(chunk)) {
-                try {
-                    JSONObject aiJson = JSONUtil.parseObj(chunk);
-                    String data = aiJson.getStr("data");
-                    if (data != null) {
-                        tempBuffer.append(data);
-                        return Flux.just(data);
-                    }
-                } catch (Exception e) {
-                    // 解析失败按普通文本处理
-                }
+        return originFlux.mapNotNull(message -> {
+            StreamMessage displayMessage = toDisplayMessage(message, seenToolIds, seenExecutedIds);
+            if (displayMessage instanceof WorkflowProgressMessage progressMessage) {
+                recordStep(thinkingSteps, progressMessage);
+            } else if (displayMessage instanceof AiResponseMessage aiResponseMessage && aiResponseMessage.getData() != null) {
+                tempBuffer.append(aiResponseMessage.getData());
             }
-
-            // 工作流进度 JSON 
-            if (isWorkflowProgressJson(chunk)) {
-                try {
-                    Map<String, Object> step = JSONUtil.toBean(chunk, Map.class);
-                    thinkingSteps.add(step);
-                } catch (Exception e) {}
-                return Flux.just(chunk);
-            }
-            
-            tempBuffer.append(chunk);
-            return Flux.just(chunk);
+            return displayMessage;
         }).doOnComplete(() -> {
             String fullText = tempBuffer.toString();
             String finalMessage = fullText;
@@ -156,6 +94,64 @@ public class WorkflowStreamHandler {
         });
     }
 
+    /**
+     * 观看进行中的工作流，只转换为前端展示消息，不记录聊天历史
+     *
+     * @param originFlux 工作流产生的流
+     * @return 处理后的流
+     */
+    public Flux<StreamMessage> watch(Flux<StreamMessage> originFlux) {
+        Set<String> seenToolIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        Set<String> seenExecutedIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        return originFlux.mapNotNull(message -> toDisplayMessage(message, seenToolIds, seenExecutedIds));
+    }
+
+    /**
+     * 转换为下发给前端的消息，工具调用转换为进度消息，无需下发时返回 null
+     */
+    private StreamMessage toDisplayMessage(StreamMessage message, Set<String> seenToolIds, Set<String> seenExecutedIds) {
+        return switch (message) {
+            case ToolRequestMessage toolRequestMessage -> {
+                String id = toolRequestMessage.getId();
+                // 去重逻辑
+                if (StrUtil.isBlank(id) || !seenToolIds.add(id)) {
+                    yield null;
+                }
+                // 解析参数，提取文件名
+                String fileInfo = extractFileInfo(toolRequestMessage.getArguments());
+                String displayContent = "调用工具: " + toolRequestMessage.getName() + (StrUtil.isNotBlank(fileInfo) ? " (" + fileInfo + ")" : "");
+                yield new WorkflowProgressMessage("processing", displayContent, 999);
+            }
+            case ToolExecutedMessage toolExecutedMessage -> {
+                // 结果去重
+                String callId = toolExecutedMessage.getId();
+                String uniqueKey = StrUtil.isNotBlank(callId) ? callId : String.valueOf(System.identityHashCode(toolExecutedMessage));
+                if (!seenExecutedIds.add(uniqueKey)) {
+                    yield null;
+                }
+                String result = toolExecutedMessage.getResult();
+                // 截断过长的结果
+                if (result != null && result.length() > 50) result = result.substring(0, 50) + "...";
+                yield new WorkflowProgressMessage("processing", "工具执行完成: " + result, 999);
+            }
+            // AI 响应与工作流进度原样透传
+            case AiResponseMessage aiResponseMessage -> aiResponseMessage;
+            case WorkflowProgressMessage progressMessage -> progressMessage;
+            default -> null;
+        };
+    }
+
+    /**
+     * 记录思考步骤（保存到 thinking_content）
+     */
+    private void recordStep(List<Map<String, Object>> thinkingSteps, WorkflowProgressMessage message) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("type", message.getType());
+        step.put("content", message.getContent());
+        step.put("step", message.getStep());
+        thinkingSteps.add(step);
+    }
+
     private String extractFileInfo(String argsStr) {
         try {
             if (StrUtil.isNotBlank(argsStr) && argsStr.trim().startsWith("{")) {
@@ -166,27 +162,4 @@ public class WorkflowStreamHandler {
         } catch (Exception e) {}
         return null;
     }
-    
-    private boolean isAiResponseJson(String chunk) {
-        if (StrUtil.isBlank(chunk)) return false;
-        String trimmed = chunk.trim();
-        return trimmed.startsWith("{") && trimmed.contains("\"type\"") && trimmed.contains("\"ai_response\"");
-    }
-    
-    private boolean isToolJson(String chunk) {
-        if (StrUtil.isBlank(chunk)) return false;
-        String trimmed = chunk.trim();
-        return trimmed.startsWith("{") && trimmed.contains("\"type\"")
-                && (trimmed.contains("\"tool_request\"") || trimmed.contains("\"tool_executed\""));
-    }
-
-    private boolean isWorkflowProgressJson(String chunk) {
-        if (StrUtil.isBlank(chunk)) return false;
-        String trimmed = chunk.trim();
-        return trimmed.startsWith("{") && trimmed.endsWith("}")
-                && trimmed.contains("\"type\"")
-                && !trimmed.contains("\"tool_request\"")
-                && !trimmed.contains("\"tool_executed\"")
-                && !trimmed.contains("\"ai_response\"");
-    }
 }
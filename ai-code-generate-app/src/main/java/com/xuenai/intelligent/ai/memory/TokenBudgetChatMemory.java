@@ -0,0 +1,304 @@
+package com.xuenai.intelligent.ai.memory;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按 token 预算裁剪的对话记忆
+ * 存储层与 MessageWindowChatMemory 一致（最多保留 maxMessages 条完整消息），发送给模型前再做压缩：
+ * 1. 每个文件只保留最新一份完整代码，旧版本替换为“文件名 + 行数 + 哈希”的引用
+ * 2. 压缩后仍超出预算时，按轮次（用户消息及其后的模型回复、工具调用与结果）从最早的一轮开始淘汰，
+ * 系统消息与进行中的一轮（最新的用户消息起）不淘汰，仍超出时截断这一轮中较早的工具结果
+ */
+@Slf4j
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    /**
+     * 代码块，与 CodeFenceStreamParser 识别的格式一致
+     */
+    private static final Pattern CODE_FENCE_PATTERN = Pattern.compile("```([\\w+-]*)([^\\n]*)\\n(.*?)```", Pattern.DOTALL);
+
+    /**
+     * 预算不足时进行中的一轮里工具结果保留的字符数
+     */
+    private static final int COMPACT_RESULT_CHARS = 512;
+
+    /**
+     * 代码语言对应的文件名，仅用于生成引用文本
+     */
+    private static final Map<String, String> FILE_NAMES = Map.of(
+            "html", "index.html",
+            "css", "style.css",
+            "js", "script.js",
+            "javascript", "script.js"
+    );
+
+    private final Object id;
+
+    private final ChatMemoryStore store;
+
+    /**
+     * 存储的最大消息数
+     */
+    private final int maxMessages;
+
+    /**
+     * 发送给模型的 token 预算
+     */
+    private final int maxTokens;
+
+    /**
+     * 代码块语言是否对应唯一的文件（单文件与多文件模式），为 false 时只有标注了文件路径的代码块参与压缩
+     */
+    private final boolean languageIdentifiesFile;
+
+    @Builder
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, int maxMessages, int maxTokens, boolean languageIdentifiesFile) {
+        this.id = id;
+        this.store = store;
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.languageIdentifiesFile = languageIdentifiesFile;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        LinkedList<ChatMessage> messages = new LinkedList<>(store.getMessages(id));
+        if (message instanceof SystemMessage) {
+            SystemMessage current = findSystemMessage(messages);
+            if (message.equals(current)) {
+                return;
+            }
+            messages.remove(current);
+            // 系统消息固定在首位，便于存储层增量写入
+            messages.addFirst(message);
+        } else {
+            messages.add(message);
+        }
+        evictOldest(messages, maxMessages);
+        store.updateMessages(id, messages);
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        List<ChatMessage> messages = compactCode(store.getMessages(id), languageIdentifiesFile);
+        int tokens = estimateTokens(messages);
+        if (tokens <= maxTokens) {
+            return messages;
+        }
+        LinkedList<ChatMessage> window = new LinkedList<>(messages);
+        while (tokens > maxTokens) {
+            List<ChatMessage> evicted = evictFirstRound(window);
+            if (evicted.isEmpty()) {
+                break;
+            }
+            tokens -= estimateTokens(evicted);
+        }
+        if (tokens > maxTokens) {
+            compactCurrentRound(window);
+        }
+        log.debug("对话记忆 {} 超出 token 预算 {}，淘汰后保留 {} 条消息", id, maxTokens, window.size());
+        return new ArrayList<>(window);
+    }
+
+    @Override
+    public void clear() {
+        store.deleteMessages(id);
+    }
+
+    /**
+     * 旧版本代码替换为引用，每个文件只保留最新一份完整代码
+     *
+     * @param languageIdentifiesFile 语言是否对应唯一的文件，为 false 时无法识别文件的代码块原样保留
+     */
+    static List<ChatMessage> compactCode(List<ChatMessage> messages, boolean languageIdentifiesFile) {
+        List<ChatMessage> result = new ArrayList<>(messages);
+        Set<String> latestSeen = new HashSet<>();
+        for (int i = result.size() - 1; i >= 0; i--) {
+            if (!(result.get(i) instanceof AiMessage aiMessage) || aiMessage.text() == null) {
+                continue;
+            }
+            Set<String> files = new HashSet<>();
+            Matcher matcher = CODE_FENCE_PATTERN.matcher(aiMessage.text());
+            StringBuilder sb = new StringBuilder();
+            boolean compacted = false;
+            while (matcher.find()) {
+                String file = fileOf(matcher.group(1).toLowerCase(), matcher.group(2), languageIdentifiesFile);
+                if (file == null) {
+                    continue;
+                }
+                if (latestSeen.contains(file)) {
+                    matcher.appendReplacement(sb, Matcher.quoteReplacement(toReference(file, matcher.group(3))));
+                    compacted = true;
+                } else {
+                    files.add(file);
+                }
+            }
+            latestSeen.addAll(files);
+            if (!compacted) {
+                continue;
+            }
+            matcher.appendTail(sb);
+            result.set(i, aiMessage.hasToolExecutionRequests()
+                    ? AiMessage.from(sb.toString(), aiMessage.toolExecutionRequests())
+                    : AiMessage.from(sb.toString()));
+        }
+        return result;
+    }
+
+    /**
+     * 代码块对应的文件：优先取语言后标注的文件路径（如 ```vue src/App.vue），否则在语言对应唯一文件时按语言识别
+     *
+     * @return 文件名，无法识别时返回 null
+     */
+    private static String fileOf(String language, String info, boolean languageIdentifiesFile) {
+        String[] tokens = info.trim().replaceFirst("^:", "").split("\\s+");
+        if (tokens[0].contains(".") || tokens[0].contains("/")) {
+            return tokens[0];
+        }
+        if (!languageIdentifiesFile) {
+            return null;
+        }
+        return FILE_NAMES.getOrDefault(language, language.isEmpty() ? "代码块" : language);
+    }
+
+    private static String toReference(String fileName, String code) {
+        long lines = code.lines().count();
+        String hash = DigestUtil.sha256Hex(code).substring(0, 8);
+        return "[已省略 " + fileName + " 的旧版本：" + lines + " 行，sha256 " + hash + "，以后续最新版本为准]";
+    }
+
+    /**
+     * 超出条数上限时按轮次淘汰最早的消息，进行中的一轮可能暂时超出上限
+     */
+    private static void evictOldest(LinkedList<ChatMessage> messages, int maxMessages) {
+        while (messages.size() > maxMessages) {
+            if (evictFirstRound(messages).isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 淘汰最早的一轮对话：从一条用户消息到下一条用户消息之前，工具调用请求与结果总是一起淘汰。
+     * 系统消息与进行中的一轮（最新的用户消息起）不淘汰
+     *
+     * @return 被淘汰的消息，没有可淘汰的轮次时为空
+     */
+    static List<ChatMessage> evictFirstRound(LinkedList<ChatMessage> messages) {
+        List<ChatMessage> evicted = new ArrayList<>();
+        if (messages.isEmpty()) {
+            return evicted;
+        }
+        int start = messages.getFirst() instanceof SystemMessage ? 1 : 0;
+        int current = lastUserMessageIndex(messages);
+        if (current <= start) {
+            return evicted;
+        }
+        int end = start + 1;
+        while (end < current && !(messages.get(end) instanceof UserMessage)) {
+            end++;
+        }
+        for (int i = start; i < end; i++) {
+            evicted.add(messages.remove(start));
+        }
+        return evicted;
+    }
+
+    /**
+     * 截断进行中的一轮里较早的工具结果，最新一条消息保持完整
+     */
+    static void compactCurrentRound(List<ChatMessage> messages) {
+        int current = Math.max(lastUserMessageIndex(messages), 0);
+        for (int i = current + 1; i < messages.size() - 1; i++) {
+            if (messages.get(i) instanceof ToolExecutionResultMessage resultMessage
+                    && resultMessage.text() != null && resultMessage.text().length() > COMPACT_RESULT_CHARS) {
+                String text = resultMessage.text();
+                messages.set(i, ToolExecutionResultMessage.from(resultMessage.id(), resultMessage.toolName(),
+                        text.substring(0, COMPACT_RESULT_CHARS) + "\n[已截断，原结果 " + text.length() + " 字符]"));
+            }
+        }
+    }
+
+    private static int lastUserMessageIndex(List<ChatMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static SystemMessage findSystemMessage(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage) {
+                return systemMessage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 粗略估算 token 数：ASCII 字符约 4 个一个 token，其余（中文等）按每字符一个 token
+     */
+    static int estimateTokens(List<ChatMessage> messages) {
+        long tokens = 0;
+        for (ChatMessage message : messages) {
+            // 每条消息的角色与格式开销
+            tokens += 4;
+            switch (message) {
+                case SystemMessage systemMessage -> tokens += estimateTokens(systemMessage.text());
+                case UserMessage userMessage -> tokens += userMessage.hasSingleText() ? estimateTokens(userMessage.singleText()) : 1024;
+                case AiMessage aiMessage -> {
+                    tokens += estimateTokens(aiMessage.text());
+                    if (aiMessage.hasToolExecutionRequests()) {
+                        for (var request : aiMessage.toolExecutionRequests()) {
+                            tokens += estimateTokens(request.name()) + estimateTokens(request.arguments());
+                        }
+                    }
+                }
+                case ToolExecutionResultMessage resultMessage -> tokens += estimateTokens(resultMessage.text());
+                default -> tokens += 256;
+            }
+        }
+        return (int) Math.min(tokens, Integer.MAX_VALUE);
+    }
+
+    private static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return ascii / 4 + other;
+    }
+}
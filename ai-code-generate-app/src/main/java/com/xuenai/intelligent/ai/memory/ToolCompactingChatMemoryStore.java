@@ -0,0 +1,67 @@
+package com.xuenai.intelligent.ai.memory;
+
+import com.xuenai.intelligent.ai.context.ProjectContextBuilder;
+import com.xuenai.intelligent.ai.tools.ToolMessageCompactor;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 写入前压缩工具调用消息的 ChatMemoryStore
+ * 工具调用循环中每次向记忆追加消息都会整体写入，借此把已执行的工具参数与历史轮次的结果替换为占位说明；
+ * 历史用户消息附带的项目上下文同样替换为占位说明，只有最新一条用户消息保留完整上下文
+ */
+public class ToolCompactingChatMemoryStore implements ChatMemoryStore {
+
+    private final ChatMemoryStore delegate;
+
+    private final ToolMessageCompactor compactor;
+
+    public ToolCompactingChatMemoryStore(ChatMemoryStore delegate, ToolMessageCompactor compactor) {
+        this.delegate = delegate;
+        this.compactor = compactor;
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return delegate.getMessages(memoryId);
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        delegate.updateMessages(memoryId, stripProjectContexts(compactor.compact(messages)));
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        delegate.deleteMessages(memoryId);
+    }
+
+    private static List<ChatMessage> stripProjectContexts(List<ChatMessage> messages) {
+        int latestUserMessage = -1;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                latestUserMessage = i;
+                break;
+            }
+        }
+        List<ChatMessage> result = null;
+        for (int i = 0; i < latestUserMessage; i++) {
+            if (!(messages.get(i) instanceof UserMessage userMessage) || !userMessage.hasSingleText()) {
+                continue;
+            }
+            String stripped = ProjectContextBuilder.stripContext(userMessage.singleText());
+            if (stripped == null) {
+                continue;
+            }
+            if (result == null) {
+                result = new ArrayList<>(messages);
+            }
+            result.set(i, UserMessage.from(stripped));
+        }
+        return result == null ? messages : result;
+    }
+}
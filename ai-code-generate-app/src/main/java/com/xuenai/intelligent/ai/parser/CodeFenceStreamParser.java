@@ -0,0 +1,208 @@
+package com.xuenai.intelligent.ai.parser;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 流式代码块解析器
+ * 单次扫描的状态机，按分片消费 AI 输出，识别 html / css / js 代码块的开闭围栏，
+ * 每个代码块在闭合围栏到达时立即回调，无需等待完整响应；同一语言只取第一个非空代码块
+ */
+public class CodeFenceStreamParser {
+
+    public static final String LANGUAGE_HTML = "html";
+    public static final String LANGUAGE_CSS = "css";
+    public static final String LANGUAGE_JS = "js";
+
+    /**
+     * 围栏信息行的最大长度，超出视为普通文本
+     */
+    private static final int MAX_INFO_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 围栏外的普通文本
+         */
+        TEXT,
+        /**
+         * 开启围栏后的信息行（语言标识）
+         */
+        INFO,
+        /**
+         * 需要收集的代码块
+         */
+        CODE,
+        /**
+         * 需要跳过的代码块（不支持的语言或重复的语言）
+         */
+        SKIP
+    }
+
+    private final BiConsumer<String, String> blockConsumer;
+
+    private final Set<String> completedLanguages = new HashSet<>();
+
+    private final StringBuilder info = new StringBuilder();
+
+    private final StringBuilder code = new StringBuilder();
+
+    /**
+     * 原始内容，没有可用的 HTML 代码块时作为兜底；未开启兜底或 HTML 代码块完成后为 null，不再缓存
+     */
+    private StringBuilder rawContent;
+
+    private State state = State.TEXT;
+
+    private String language;
+
+    private int ticks;
+
+    /**
+     * @param blockConsumer 代码块回调，参数为规范化后的语言（html / css / js）和代码内容
+     */
+    public CodeFenceStreamParser(BiConsumer<String, String> blockConsumer) {
+        this(blockConsumer, false);
+    }
+
+    /**
+     * @param blockConsumer  代码块回调，参数为规范化后的语言（html / css / js）和代码内容
+     * @param keepRawContent 是否缓存原始内容，直到 HTML 代码块完成，用于没有代码块时的兜底
+     */
+    public CodeFenceStreamParser(BiConsumer<String, String> blockConsumer, boolean keepRawContent) {
+        this.blockConsumer = blockConsumer;
+        this.rawContent = keepRawContent ? new StringBuilder() : null;
+    }
+
+    /**
+     * 消费一个分片
+     *
+     * @param chunk 分片内容
+     */
+    public void append(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (rawContent != null) {
+            rawContent.append(chunk);
+        }
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    /**
+     * 结束解析，未闭合的代码块按已接收的内容回调
+     */
+    public void finish() {
+        if (state == State.CODE) {
+            appendPendingTicks();
+            emitBlock();
+        }
+        state = State.TEXT;
+        ticks = 0;
+    }
+
+    /**
+     * 获取原始内容
+     *
+     * @return 原始内容，未开启缓存或 HTML 代码块已完成时返回 null
+     */
+    public String getRawContent() {
+        return rawContent == null ? null : rawContent.toString();
+    }
+
+    /**
+     * 是否已回调过该语言的代码块
+     */
+    public boolean isCompleted(String language) {
+        return completedLanguages.contains(language);
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c != '`') {
+                    ticks = 0;
+                } else if (++ticks == 3) {
+                    ticks = 0;
+                    info.setLength(0);
+                    state = State.INFO;
+                }
+            }
+            case INFO -> {
+                if (c == '\n') {
+                    openBlock();
+                } else if (c == '`' || info.length() >= MAX_INFO_LENGTH) {
+                    // 行内的反引号，回退为普通文本重新处理
+                    state = State.TEXT;
+                    accept(c);
+                } else {
+                    info.append(c);
+                }
+            }
+            case CODE, SKIP -> {
+                if (c == '`') {
+                    if (++ticks == 3) {
+                        ticks = 0;
+                        if (state == State.CODE) {
+                            emitBlock();
+                        }
+                        state = State.TEXT;
+                    }
+                    return;
+                }
+                if (state == State.CODE) {
+                    appendPendingTicks();
+                    code.append(c);
+                }
+                ticks = 0;
+            }
+        }
+    }
+
+    /**
+     * 根据信息行进入代码块
+     */
+    private void openBlock() {
+        language = normalizeLanguage(info.toString().trim());
+        code.setLength(0);
+        ticks = 0;
+        state = language != null && !completedLanguages.contains(language) ? State.CODE : State.SKIP;
+    }
+
+    private void emitBlock() {
+        String content = code.toString();
+        code.setLength(0);
+        // 空代码块不算完成，同一语言后续的代码块或原始内容兜底仍可使用
+        if (content.isBlank()) {
+            return;
+        }
+        completedLanguages.add(language);
+        if (LANGUAGE_HTML.equals(language)) {
+            // 已有 HTML 代码块，不再需要兜底
+            rawContent = null;
+        }
+        blockConsumer.accept(language, content);
+    }
+
+    private void appendPendingTicks() {
+        for (int i = 0; i < ticks; i++) {
+            code.append('`');
+        }
+    }
+
+    /**
+     * 规范化语言标识
+     *
+     * @return html / css / js，不支持时返回 null
+     */
+    private static String normalizeLanguage(String info) {
+        return switch (info.toLowerCase()) {
+            case "html" -> LANGUAGE_HTML;
+            case "css" -> LANGUAGE_CSS;
+            case "js", "javascript" -> LANGUAGE_JS;
+            default -> null;
+        };
+    }
+}
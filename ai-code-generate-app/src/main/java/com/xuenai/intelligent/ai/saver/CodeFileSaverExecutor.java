@@ -33,5 +33,22 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,"暂不支持该类型: " + generatorType);
         };
     }
+
+    /**
+     * 执行单个代码块保存（流式）
+     *
+     * @param language      代码块语言
+     * @param code          代码
+     * @param generatorType 保存类型
+     * @param appId         应用 ID
+     * @return 保存的文件，无需保存时返回 null
+     */
+    public static File executorSaverCodeBlock(String language, String code, CodeGenerateTypeEnum generatorType, Long appId) {
+        return switch (generatorType) {
+            case HTML -> HTML_CODE_FILE_SAVER_TEMPLATE.saveCodeBlock(language, code, appId);
+            case MULTI_FILE -> MULTI_FILE_CODE_SAVER_TEMPLATE.saveCodeBlock(language, code, appId);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,"暂不支持该类型: " + generatorType);
+        };
+    }
     
 }
@@ -31,6 +31,24 @@ public abstract class CodeFileSaverTemplate<T> {
         return new File(path);
     }
 
+    /**
+     * 保存单个代码块，用于流式生成时代码块围栏闭合后立即落盘
+     *
+     * @param language 代码块语言（html / css / js）
+     * @param code     代码内容
+     * @param appId    应用 ID
+     * @return 保存的文件，该类型不包含此语言或代码为空时返回 null
+     */
+    public final File saveCodeBlock(String language, String code, Long appId) {
+        String fileName = getFileName(language);
+        if (fileName == null || StrUtil.isBlank(code)) {
+            return null;
+        }
+        String path = buildUniqueDir(appId);
+        writeToFile(path, fileName, code.trim());
+        return new File(path, fileName);
+    }
+
     /**
      * 验证输入参数,生产的代码
      * 可由子类进行覆写
@@ -69,6 +87,17 @@ public abstract class CodeFileSaverTemplate<T> {
         FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
     }
 
+    /**
+     * 获取代码块语言对应的文件名
+     * 可由子类进行覆写
+     *
+     * @param language 代码块语言
+     * @return 文件名，不支持时返回 null
+     */
+    protected String getFileName(String language) {
+        return null;
+    }
+
     /**
      * 获取生产代码类型,由具体的子类进行实习
      *
@@ -2,6 +2,7 @@ package com.xuenai.intelligent.ai.saver.impl;
 
 import cn.hutool.core.util.StrUtil;
 import com.xuenai.intelligent.ai.mode.result.HtmlCodeResult;
+import com.xuenai.intelligent.ai.parser.CodeFenceStreamParser;
 import com.xuenai.intelligent.ai.saver.CodeFileSaverTemplate;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
@@ -21,6 +22,11 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
         writeToFile(path, "index.html", result.getHtml());
     }
 
+    @Override
+    protected String getFileName(String language) {
+        return CodeFenceStreamParser.LANGUAGE_HTML.equals(language) ? "index.html" : null;
+    }
+
     @Override
     protected void validateInput(HtmlCodeResult result) {
         super.validateInput(result);
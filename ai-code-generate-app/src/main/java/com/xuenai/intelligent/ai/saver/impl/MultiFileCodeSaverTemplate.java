@@ -2,6 +2,7 @@ package com.xuenai.intelligent.ai.saver.impl;
 
 import cn.hutool.core.util.StrUtil;
 import com.xuenai.intelligent.ai.mode.result.MultiFileCodeResult;
+import com.xuenai.intelligent.ai.parser.CodeFenceStreamParser;
 import com.xuenai.intelligent.ai.saver.CodeFileSaverTemplate;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
@@ -23,6 +24,16 @@ public class MultiFileCodeSaverTemplate extends CodeFileSaverTemplate<MultiFileC
         writeToFile(path, "script.js", result.getJavaScript());
     }
 
+    @Override
+    protected String getFileName(String language) {
+        return switch (language) {
+            case CodeFenceStreamParser.LANGUAGE_HTML -> "index.html";
+            case CodeFenceStreamParser.LANGUAGE_CSS -> "style.css";
+            case CodeFenceStreamParser.LANGUAGE_JS -> "script.js";
+            default -> null;
+        };
+    }
+
     @Override
     protected void validateInput(MultiFileCodeResult result) {
         super.validateInput(result);
@@ -0,0 +1,233 @@
+package com.xuenai.intelligent.ai.stream;
+
+import lombok.Getter;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单次生成的事件流
+ * 为每个事件分配单调递增的 SSE id，保存在有界环形缓冲区中，订阅者先回放缓冲区中的事件再接入实时流
+ */
+public class GenerationStream {
+
+    @Getter
+    private final long appId;
+
+    @Getter
+    private final long userId;
+
+    @Getter
+    private final String generationId;
+
+    private final int capacity;
+
+    private final GenerationStreamManager manager;
+
+    private final Deque<BufferedEvent> buffer;
+
+    /**
+     * 实时订阅者，订阅者取消时会在遍历过程中移除自身，使用写时复制列表
+     */
+    private final List<FluxSink<ServerSentEvent<String>>> subscribers = new CopyOnWriteArrayList<>();
+
+    private long nextSequence = 1;
+
+    private long bufferedSize;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    @Getter
+    private volatile long completedAt;
+
+    private Disposable upstream;
+
+    GenerationStream(long appId, long userId, String generationId, int capacity, GenerationStreamManager manager) {
+        this.appId = appId;
+        this.userId = userId;
+        this.generationId = generationId;
+        this.capacity = capacity;
+        this.manager = manager;
+        this.buffer = new ArrayDeque<>(Math.min(capacity, 256));
+    }
+
+    /**
+     * 订阅上游已编码的事件数据
+     */
+    void connect(Flux<String> source) {
+        upstream = source.subscribe(this::publish, this::fail, this::complete);
+    }
+
+    /**
+     * 订阅事件流
+     *
+     * @param lastSequence 客户端已收到的最后一个序号，0 表示从头开始
+     * @return 先回放、后实时的事件流；需要的事件已被淘汰出缓冲区时只有一个重新开始事件
+     */
+    public Flux<ServerSentEvent<String>> subscribe(long lastSequence) {
+        return Flux.create(sink -> {
+            synchronized (this) {
+                long oldestSequence = buffer.isEmpty() ? nextSequence : buffer.peekFirst().sequence();
+                if (oldestSequence > lastSequence + 1) {
+                    // 无法无缝续传，回放剩余事件会得到缺失中间内容的结果
+                    sink.next(GenerationStreamManager.restartEvent("部分生成内容已过期，请刷新后查看结果或重新生成"));
+                    sink.complete();
+                    return;
+                }
+                for (BufferedEvent bufferedEvent : buffer) {
+                    if (bufferedEvent.sequence() > lastSequence) {
+                        sink.next(bufferedEvent.event());
+                    }
+                }
+                if (completed) {
+                    terminate(sink);
+                    return;
+                }
+                subscribers.add(sink);
+            }
+            sink.onDispose(() -> {
+                boolean detached;
+                synchronized (this) {
+                    subscribers.remove(sink);
+                    detached = subscribers.isEmpty() && !completed;
+                }
+                if (detached) {
+                    manager.onDetached(this);
+                }
+            });
+        });
+    }
+
+    /**
+     * 生成 SSE id
+     */
+    private String eventId(long sequence) {
+        return generationId + GenerationStreamManager.EVENT_ID_SEPARATOR + sequence;
+    }
+
+    /**
+     * 释放缓冲区最旧的事件
+     *
+     * @return 释放的字符数
+     */
+    synchronized long trimOldest() {
+        BufferedEvent bufferedEvent = buffer.pollFirst();
+        if (bufferedEvent == null) {
+            return 0;
+        }
+        bufferedSize -= bufferedEvent.size();
+        return bufferedEvent.size();
+    }
+
+    /**
+     * 清空缓冲区
+     *
+     * @return 释放的字符数
+     */
+    synchronized long clearBuffer() {
+        long released = bufferedSize;
+        buffer.clear();
+        bufferedSize = 0;
+        return released;
+    }
+
+    synchronized long getBufferedSize() {
+        return bufferedSize;
+    }
+
+    synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 仍无订阅者时取消上游生成，取消信号沿响应式链路传递到模型调用与工作流
+     *
+     * @return 是否已取消
+     */
+    boolean cancelIfDetached() {
+        synchronized (this) {
+            if (completed || !subscribers.isEmpty()) {
+                return false;
+            }
+        }
+        Disposable disposable = upstream;
+        if (disposable != null) {
+            disposable.dispose();
+        }
+        finish(null);
+        return true;
+    }
+
+    private void publish(String data) {
+        long delta;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            long sequence = nextSequence++;
+            ServerSentEvent<String> event = ServerSentEvent.<String>builder().id(eventId(sequence)).data(data).build();
+            BufferedEvent bufferedEvent = new BufferedEvent(sequence, event, data == null ? 0 : data.length());
+            buffer.addLast(bufferedEvent);
+            delta = bufferedEvent.size();
+            // 环形缓冲区，超出容量时丢弃最旧的事件
+            while (buffer.size() > capacity) {
+                delta -= buffer.pollFirst().size();
+            }
+            bufferedSize += delta;
+            for (FluxSink<ServerSentEvent<String>> sink : subscribers) {
+                sink.next(event);
+            }
+        }
+        manager.onBuffered(delta);
+    }
+
+    private void fail(Throwable throwable) {
+        finish(throwable);
+    }
+
+    private void complete() {
+        finish(null);
+    }
+
+    private void finish(Throwable throwable) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            error = throwable;
+            completedAt = System.currentTimeMillis();
+            for (FluxSink<ServerSentEvent<String>> sink : subscribers) {
+                terminate(sink);
+            }
+            subscribers.clear();
+        }
+        manager.onCompleted(this);
+    }
+
+    private void terminate(FluxSink<ServerSentEvent<String>> sink) {
+        if (error != null) {
+            sink.error(error);
+        } else {
+            sink.complete();
+        }
+    }
+
+    /**
+     * 缓冲的事件
+     *
+     * @param sequence 序号
+     * @param event    SSE 事件
+     * @param size     数据字符数
+     */
+    private record BufferedEvent(long sequence, ServerSentEvent<String> event, long size) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.xuenai.intelligent.ai.stream;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.xuenai.aicodegenerate.exception.ErrorCode;
+import com.xuenai.aicodegenerate.exception.ThrowUtils;
+import com.xuenai.intelligent.config.GenerationStreamConfig;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可续传生成流管理器
+ * 按 appId + 生成 ID 管理生成流，客户端携带 Last-Event-ID 重连时回放缓冲区并接入实时流，
+ * 而不是重新发起一次生成；生成结束后延迟淘汰缓冲区，并限制所有缓冲区的总内存占用
+ */
+@Slf4j
+@Component
+public class GenerationStreamManager {
+
+    /**
+     * SSE id 格式: {generationId}:{sequence}
+     */
+    static final String EVENT_ID_SEPARATOR = ":";
+
+    /**
+     * 无法续传时下发的事件名，客户端收到后应放弃当前结果，重新加载或重新发起生成
+     */
+    public static final String RESTART_EVENT = "restart";
+
+    @Resource
+    private GenerationStreamConfig generationStreamConfig;
+
+    private final Map<String, GenerationStream> streamMap = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBufferedSize = new AtomicLong();
+
+    /**
+     * 开始一次新的生成
+     *
+     * @param appId  应用 ID
+     * @param userId 用户 ID
+     * @param source 已编码的事件数据流
+     * @return 从头开始的事件流
+     */
+    public Flux<ServerSentEvent<String>> start(long appId, long userId, Flux<String> source) {
+        String generationId = IdUtil.fastSimpleUUID();
+        GenerationStream stream = new GenerationStream(appId, userId, generationId, generationStreamConfig.getBufferSize(), this);
+        streamMap.put(buildKey(appId, generationId), stream);
+        // 生成与客户端连接解耦，订阅建立前下发的事件由缓冲区回放
+        stream.connect(source);
+        // 断开检测只由订阅者取消触发，响应未被订阅（如请求在返回后失败）时同样需要按超时取消生成
+        onDetached(stream);
+        return stream.subscribe(0);
+    }
+
+    /**
+     * 断线重连，从 Last-Event-ID 之后续传
+     *
+     * @param appId       应用 ID
+     * @param userId      用户 ID
+     * @param lastEventId 客户端最后收到的 SSE id
+     * @return 续传的事件流，生成已被淘汰或缺失事件时只有一个重新开始事件
+     */
+    public Flux<ServerSentEvent<String>> resume(long appId, long userId, String lastEventId) {
+        int index = lastEventId.lastIndexOf(EVENT_ID_SEPARATOR);
+        ThrowUtils.throwIf(index <= 0, ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+        String generationId = lastEventId.substring(0, index);
+        long lastSequence;
+        try {
+            lastSequence = Long.parseLong(lastEventId.substring(index + 1));
+        } catch (NumberFormatException e) {
+            lastSequence = -1;
+        }
+        ThrowUtils.throwIf(lastSequence < 0, ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+        GenerationStream stream = streamMap.get(buildKey(appId, generationId));
+        if (stream == null) {
+            log.info("生成流已淘汰，无法续传, appId: {}, generationId: {}", appId, generationId);
+            return Flux.just(restartEvent("生成记录已过期，请刷新后查看结果或重新生成"));
+        }
+        ThrowUtils.throwIf(stream.getUserId() != userId, ErrorCode.NO_AUTH_ERROR, "无权限操作该应用");
+        return stream.subscribe(lastSequence);
+    }
+
+    /**
+     * 构造重新开始事件
+     *
+     * @param reason 原因
+     */
+    static ServerSentEvent<String> restartEvent(String reason) {
+        return ServerSentEvent.<String>builder().event(RESTART_EVENT).data(reason).build();
+    }
+
+    /**
+     * 是否为重新开始事件，此后不应再下发结束事件
+     */
+    public static boolean isRestartEvent(ServerSentEvent<String> event) {
+        return RESTART_EVENT.equals(event.event());
+    }
+
+    /**
+     * 是否为续传请求
+     */
+    public static boolean isResumable(String lastEventId) {
+        return StrUtil.isNotBlank(lastEventId) && lastEventId.contains(EVENT_ID_SEPARATOR);
+    }
+
+    /**
+     * 缓冲区大小变化，超出总上限时依次淘汰已结束的生成，仍超出则裁剪最大的缓冲区
+     */
+    void onBuffered(long delta) {
+        long maxTotal = generationStreamConfig.getMaxTotalBufferSize();
+        if (totalBufferedSize.addAndGet(delta) <= maxTotal) {
+            return;
+        }
+        streamMap.values().stream()
+                .filter(GenerationStream::isCompleted)
+                .sorted(Comparator.comparingLong(GenerationStream::getCompletedAt))
+                .takeWhile(stream -> totalBufferedSize.get() > maxTotal)
+                .forEach(this::evict);
+        while (totalBufferedSize.get() > maxTotal) {
+            GenerationStream largest = streamMap.values().stream()
+                    .max(Comparator.comparingLong(GenerationStream::getBufferedSize))
+                    .orElse(null);
+            long released = largest == null ? 0 : largest.trimOldest();
+            if (released == 0) {
+                break;
+            }
+            totalBufferedSize.addAndGet(-released);
+        }
+    }
+
+    /**
+     * 生成开始或所有客户端断开时调用，超时仍无订阅者则取消生成，避免为已放弃的生成继续消耗模型调用
+     */
+    void onDetached(GenerationStream stream) {
+        long detachMillis = generationStreamConfig.getDetachTimeout().toMillis();
+        Schedulers.parallel().schedule(() -> {
+            if (stream.cancelIfDetached()) {
+                log.info("客户端断开未重连，已取消生成, appId: {}, generationId: {}", stream.getAppId(), stream.getGenerationId());
+            }
+        }, detachMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 生成结束，保留一段时间供断线重连后淘汰
+     */
+    void onCompleted(GenerationStream stream) {
+        long retentionMillis = generationStreamConfig.getRetention().toMillis();
+        Schedulers.parallel().schedule(() -> evict(stream), retentionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void evict(GenerationStream stream) {
+        if (streamMap.remove(buildKey(stream.getAppId(), stream.getGenerationId()), stream)) {
+            totalBufferedSize.addAndGet(-stream.clearBuffer());
+        }
+    }
+
+    private static String buildKey(long appId, String generationId) {
+        return appId + EVENT_ID_SEPARATOR + generationId;
+    }
+}
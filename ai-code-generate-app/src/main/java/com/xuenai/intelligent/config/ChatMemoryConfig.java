@@ -0,0 +1,29 @@
+package com.xuenai.intelligent.config;
+
+import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 对话记忆配置
+ * 配置了 token 预算的生成类型使用 TokenBudgetChatMemory，旧版本代码压缩为引用并按预算裁剪；未配置的仍按消息条数窗口
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.memory")
+@Configuration
+public class ChatMemoryConfig {
+
+    /**
+     * 存储的最大消息数
+     */
+    private int maxMessages = 100;
+
+    /**
+     * 各生成类型发送给模型的 token 预算
+     */
+    private Map<CodeGenerateTypeEnum, Integer> tokenBudget = new EnumMap<>(CodeGenerateTypeEnum.class);
+}
@@ -0,0 +1,37 @@
+package com.xuenai.intelligent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 可续传生成流配置
+ * 每次生成的已下发事件保存在有界环形缓冲区中，客户端携带 Last-Event-ID 重连时从缓冲区续传
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.stream.resume")
+@Configuration
+public class GenerationStreamConfig {
+
+    /**
+     * 单次生成缓冲的最大事件数
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * 生成结束后缓冲区保留时长
+     */
+    private Duration retention = Duration.ofSeconds(60);
+
+    /**
+     * 所有客户端断开后等待重连的时长，超时未重连则取消生成
+     */
+    private Duration detachTimeout = Duration.ofSeconds(15);
+
+    /**
+     * 所有生成缓冲区的总字符数上限
+     */
+    private long maxTotalBufferSize = 32L * 1024 * 1024;
+}
@@ -0,0 +1,36 @@
+package com.xuenai.intelligent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 工程项目上下文预选配置
+ * 对已有工程项目的修改请求，按需求检索相关文件并随用户消息一起发送，减少模型探索项目的工具调用轮次
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.project-context")
+@Configuration
+public class ProjectContextConfig {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多附带的相关文件数
+     */
+    private int maxFiles = 3;
+
+    /**
+     * 附带文件内容的总大小上限，超出时大文件只附带大纲
+     */
+    private DataSize maxContentSize = DataSize.ofKilobytes(16);
+
+    /**
+     * 项目文件列表最多列出的文件数
+     */
+    private int maxListedFiles = 200;
+}
@@ -1,11 +1,13 @@
 package com.xuenai.intelligent.config;
 
+import com.xuenai.intelligent.custom.ChatMemoryCodec;
 import com.xuenai.intelligent.custom.CustomRedisChatMemoryStore;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 @Data
 @ConfigurationProperties(value = "spring.data.redis")
@@ -26,9 +28,36 @@ public class RedisChatMemoryStoreConfig {
 
     private long ttl;
 
+    /**
+     * 对话记忆存储模式，LIST 模式只写入增量消息
+     */
+    private CustomRedisChatMemoryStore.StoreMode memoryStoreMode = CustomRedisChatMemoryStore.StoreMode.STRING;
+
+    /**
+     * 对话记忆写入 Redis 时的压缩算法，读取时兼容未压缩的旧数据
+     */
+    private ChatMemoryCodec.Compression memoryCompression = ChatMemoryCodec.Compression.NONE;
+
+    /**
+     * 超过该大小的消息才压缩
+     */
+    private DataSize memoryCompressThreshold = DataSize.ofKilobytes(1);
+
+    /**
+     * 对话记忆本地近端缓存大小，为 0 表示不开启
+     */
+    private DataSize memoryNearCacheSize = DataSize.ofBytes(0);
+
+    /**
+     * 对话记忆跨节点缓存失效通知频道
+     */
+    private String memoryInvalidationChannel = "chat-memory:invalidation";
+
     @Bean
     public CustomRedisChatMemoryStore customRedisChatMemoryStore() {
-        CustomRedisChatMemoryStore.CustomRedisChatMemoryStoreBuilder builder = CustomRedisChatMemoryStore.builder().host(host).port(port).username(username).db(db).prefix(prefix).ttl(ttl);
+        CustomRedisChatMemoryStore.CustomRedisChatMemoryStoreBuilder builder = CustomRedisChatMemoryStore.builder().host(host).port(port).username(username).db(db).prefix(prefix).ttl(ttl).storeMode(memoryStoreMode)
+                .codec(new ChatMemoryCodec(memoryCompression, (int) memoryCompressThreshold.toBytes()))
+                .nearCacheMaxBytes(memoryNearCacheSize.toBytes()).invalidationChannel(memoryInvalidationChannel);
         if (password != null && !password.isEmpty()) {
             builder.password(password);
         }
@@ -0,0 +1,32 @@
+package com.xuenai.intelligent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * SSE 流式输出合并配置
+ * 连续的 AI 文本分片在时间窗口或大小阈值内合并为一个 SSE 事件下发，先到先刷新
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.stream.coalesce")
+@Configuration
+public class StreamCoalesceConfig {
+
+    /**
+     * 是否开启合并
+     */
+    private boolean enabled = true;
+
+    /**
+     * 刷新时间窗口，自缓冲区收到第一个分片起计时
+     */
+    private Duration flushInterval = Duration.ofMillis(30);
+
+    /**
+     * 缓冲区字符数阈值，达到后立即刷新
+     */
+    private int maxBufferSize = 2048;
+}
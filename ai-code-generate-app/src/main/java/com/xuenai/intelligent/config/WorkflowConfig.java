@@ -0,0 +1,42 @@
+package com.xuenai.intelligent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 代码生成工作流运行配置
+ * 工作流图在启动时编译一次，所有运行共享同一个并行节点执行器
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.workflow")
+@Configuration
+public class WorkflowConfig {
+
+    /**
+     * 同时运行的工作流上限，超出的运行排队等待
+     */
+    private int maxConcurrentRuns = 16;
+
+    /**
+     * 停机时等待运行中的工作流结束的时长
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 单个图片收集分支的截止时间，超时未完成的任务被取消，保留已完成的结果
+     */
+    private Duration imageCollectDeadline = Duration.ofSeconds(60);
+
+    /**
+     * 工作流检查点保留时长，超时未恢复的运行需要从头开始
+     */
+    private Duration checkpointTtl = Duration.ofHours(24);
+
+    /**
+     * 静态预检通过后跳过模型质量检查的风险分阈值，风险分低于该值时不调用模型，设为 0 时总是调用模型
+     */
+    private int qualityCheckRiskThreshold = 3;
+}
@@ -1,7 +1,6 @@
 package com.xuenai.intelligent.controller;
 
 import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.xuenai.aicodegenerate.annotation.AuthCheck;
 import com.xuenai.aicodegenerate.common.BaseResponse;
@@ -17,6 +16,11 @@ import com.xuenai.aicodegenerate.model.dto.app.*;
 import com.xuenai.aicodegenerate.model.entity.App;
 import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.vo.app.AppVO;
+import com.xuenai.intelligent.ai.codec.StreamMessageCodec;
+import com.xuenai.intelligent.ai.codec.StreamMessageCoalescer;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.stream.GenerationStreamManager;
+import com.xuenai.intelligent.config.StreamCoalesceConfig;
 import com.xuenai.intelligent.service.AppService;
 import com.xuenai.intelligent.service.ProjectDownloadService;
 import jakarta.annotation.Resource;
@@ -31,7 +35,6 @@ import reactor.core.publisher.Mono;
 
 import java.io.File;
 import java.time.LocalDateTime;
-import java.util.Map;
 
 /**
  * 应用 控制层。
@@ -48,27 +51,66 @@ public class AppController {
     @Resource
     private ProjectDownloadService projectDownloadService;
 
+    @Resource
+    private StreamCoalesceConfig streamCoalesceConfig;
+
+    @Resource
+    private GenerationStreamManager generationStreamManager;
+
     /**
      * 用户对话并生成应用
+     * 客户端断线重连时携带 Last-Event-ID，从该事件之后续传，不会重新发起生成
      *
      * @param appId       应用 ID
      * @param userMessage 用户对话信息
+     * @param lastEventId 最后收到的事件 ID
      * @param request     请求
      * @return 流式输出结果
      */
     @GetMapping(value = "/chat/generate/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<String>> chat(@RequestParam Long appId, @RequestParam String userMessage, HttpServletRequest request) {
+    public Flux<ServerSentEvent<String>> chat(@RequestParam Long appId, @RequestParam String userMessage,
+                                              @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                              HttpServletRequest request) {
         ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
         ThrowUtils.throwIf(userMessage == null, ErrorCode.PARAMS_ERROR, "提示词不能为空");
         User loginUser = InnerUserService.getLoginUser(request);
-        Flux<String> content = appService.chatToGenerateCode(appId, userMessage, loginUser);
-        return content.map(chunk -> {
-            Map<String, String> wrapper = Map.of("d", chunk);
-            String json = JSONUtil.toJsonStr(wrapper);
-            return ServerSentEvent.<String>builder().data(json).build();
-        }).concatWith(
-                // 发送结束事件
-                Mono.just(ServerSentEvent.<String>builder().event("done").data("").build()));
+        Flux<ServerSentEvent<String>> events;
+        if (GenerationStreamManager.isResumable(lastEventId)) {
+            events = generationStreamManager.resume(appId, loginUser.getId(), lastEventId);
+        } else {
+            Flux<StreamMessage> content = appService.chatToGenerateCode(appId, userMessage, loginUser);
+            // 合并连续的文本分片，减少 SSE 帧数
+            if (streamCoalesceConfig.isEnabled()) {
+                content = StreamMessageCoalescer.coalesce(content, streamCoalesceConfig.getFlushInterval(), streamCoalesceConfig.getMaxBufferSize());
+            }
+            // 序列化只在此处发生一次
+            events = generationStreamManager.start(appId, loginUser.getId(), content.map(StreamMessageCodec::encode));
+        }
+        return events.concatWith(
+                        // 发送结束事件
+                        Mono.just(ServerSentEvent.<String>builder().event("done").data("").build()))
+                // 无法续传时以重新开始事件结束，不发送结束事件，避免客户端把不完整的结果当作完成
+                .takeUntil(GenerationStreamManager::isRestartEvent);
+    }
+
+    /**
+     * 观看应用进行中的工作流
+     * 多个客户端可同时观看同一次工作流运行，不会重复触发生成
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 流式输出结果
+     */
+    @GetMapping(value = "/chat/workflow/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> watchWorkflow(@RequestParam Long appId, HttpServletRequest request) {
+        ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
+        User loginUser = InnerUserService.getLoginUser(request);
+        Flux<StreamMessage> content = appService.watchWorkflow(appId, loginUser);
+        if (streamCoalesceConfig.isEnabled()) {
+            content = StreamMessageCoalescer.coalesce(content, streamCoalesceConfig.getFlushInterval(), streamCoalesceConfig.getMaxBufferSize());
+        }
+        return content.map(message -> ServerSentEvent.<String>builder().data(StreamMessageCodec.encode(message)).build())
+                .concatWith(Mono.just(ServerSentEvent.<String>builder().event("done").data("").build()));
     }
 
     /**
@@ -0,0 +1,144 @@
+package com.xuenai.intelligent.custom;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 对话记忆编解码
+ * 压缩后的格式：魔数(2 字节) + 版本(1 字节) + 压缩算法(1 字节) + 原始长度(4 字节) + 数据
+ * 未压缩的数据直接写入 UTF-8 JSON，不带头部；读取时没有魔数的数据按纯 JSON 处理，兼容旧数据
+ */
+public class ChatMemoryCodec {
+
+    /**
+     * 魔数，JSON 不会以这两个字节开头
+     */
+    private static final byte MAGIC_0 = (byte) 0xC7;
+
+    private static final byte MAGIC_1 = (byte) 0x4D;
+
+    private static final byte VERSION_1 = 1;
+
+    private static final byte ALGORITHM_DEFLATE = 1;
+
+    private static final int HEADER_LENGTH = 8;
+
+    /**
+     * 不压缩，写入纯 JSON
+     */
+    public static final ChatMemoryCodec PLAIN = new ChatMemoryCodec(Compression.NONE, 0);
+
+    /**
+     * 压缩算法
+     */
+    public enum Compression {
+        /**
+         * 不压缩
+         */
+        NONE,
+        /**
+         * JDK Deflate（最快速度级别），生成的 HTML / JSON 通常可压缩到原来的 20%-30%
+         */
+        DEFLATE
+    }
+
+    private final Compression compression;
+
+    /**
+     * 小于该字节数的数据不压缩
+     */
+    private final int compressThreshold;
+
+    public ChatMemoryCodec(Compression compression, int compressThreshold) {
+        this.compression = compression == null ? Compression.NONE : compression;
+        this.compressThreshold = Math.max(compressThreshold, 0);
+    }
+
+    /**
+     * 编码
+     *
+     * @param json 消息 JSON
+     * @return 写入 Redis 的字节
+     */
+    public byte[] encode(String json) {
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+        if (compression == Compression.NONE || raw.length < compressThreshold) {
+            return raw;
+        }
+        byte[] compressed = deflate(raw);
+        // 压缩收益不明显时保留原文，省去读取时的解压
+        if (compressed.length + HEADER_LENGTH >= raw.length) {
+            return raw;
+        }
+        return ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(MAGIC_0).put(MAGIC_1).put(VERSION_1).put(ALGORITHM_DEFLATE)
+                .putInt(raw.length)
+                .put(compressed)
+                .array();
+    }
+
+    /**
+     * 解码，兼容未压缩的旧数据
+     *
+     * @param bytes Redis 中的字节
+     * @return 消息 JSON
+     */
+    public static String decode(byte[] bytes) {
+        if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (bytes[2] != VERSION_1) {
+            throw new IllegalStateException("不支持的对话记忆编码版本: " + bytes[2]);
+        }
+        if (bytes[3] != ALGORITHM_DEFLATE) {
+            throw new IllegalStateException("不支持的对话记忆压缩算法: " + bytes[3]);
+        }
+        int rawLength = ByteBuffer.wrap(bytes, 4, 4).getInt();
+        return new String(inflate(bytes, HEADER_LENGTH, rawLength), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(raw.length / 4, 64));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int rawLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength) {
+                int count = inflater.inflate(raw, length, rawLength - length);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("对话记忆数据损坏，期望长度 " + rawLength + "，实际 " + length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("对话记忆解压失败: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
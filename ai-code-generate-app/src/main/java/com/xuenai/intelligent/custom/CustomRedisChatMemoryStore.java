@@ -1,22 +1,38 @@
 package com.xuenai.intelligent.custom;
 
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStoreException;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.ChatMessageDeserializer;
 import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 持用户名、密码与数据库选择的 Redis ChatMemoryStore。
  * 使用 Jedis 连接池（线程安全、性能优）。
+ * 支持两种存储模式：STRING 每次整体覆盖写入；LIST 以 Redis 列表存储，只写入增量消息。
+ * 可选开启本地近端缓存（L1），写入时同步写 Redis 并通过 pub/sub 通知其他节点失效。
  */
 @Slf4j
 public class CustomRedisChatMemoryStore implements ChatMemoryStore {
@@ -61,8 +77,71 @@ public class CustomRedisChatMemoryStore implements ChatMemoryStore {
      */
     private final JedisPool pool;
 
+    /**
+     * 存储模式
+     */
+    private final StoreMode storeMode;
+
+    /**
+     * 写入 Redis 时的编码（可选压缩），读取时兼容纯 JSON 旧数据
+     */
+    private final ChatMemoryCodec codec;
+
+    /**
+     * LIST 模式下每个 key 最近一次写入的消息指纹，用于计算增量；缺失时整体覆盖写入
+     */
+    private final Cache<String, List<String>> writtenFingerprints = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 消息指纹缓存，按对象标识（弱引用）索引：记忆中的消息对象在多次写入之间复用，只有新消息才需要序列化并计算摘要
+     */
+    private final Cache<ChatMessage, String> messageFingerprints = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(100_000)
+            .build();
+
+    /**
+     * 本地近端缓存，按估算字节数限制大小；为 null 表示未开启
+     */
+    private final Cache<String, List<ChatMessage>> nearCache;
+
+    /**
+     * 跨节点缓存失效通知频道
+     */
+    private final String invalidationChannel;
+
+    /**
+     * 当前节点标识，用于忽略自身发出的失效通知
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 当前失效通知订阅
+     */
+    private volatile JedisPubSub invalidationSubscriber;
+
+    private volatile boolean closed;
+
+    /**
+     * 存储模式
+     */
+    public enum StoreMode {
+        /**
+         * 整个消息列表序列化为一个字符串
+         */
+        STRING,
+        /**
+         * 每条消息为 Redis 列表的一个元素，RPUSH / LTRIM 增量写入
+         */
+        LIST
+    }
+
     @Builder
-    public CustomRedisChatMemoryStore(String host, int port, String username, String password, int db, String prefix, Long ttl, JedisPool pool) {
+    public CustomRedisChatMemoryStore(String host, int port, String username, String password, int db, String prefix, Long ttl, JedisPool pool, StoreMode storeMode,
+                                      ChatMemoryCodec codec, long nearCacheMaxBytes, String invalidationChannel) {
         this.host = host;
         this.port = port;
         this.username = username;
@@ -70,7 +149,8 @@ public class CustomRedisChatMemoryStore implements ChatMemoryStore {
         this.db = db;
         this.prefix = prefix == null ? "" : prefix;
         this.ttl = ttl == null ? 0L : ttl;
-
+        this.storeMode = storeMode == null ? StoreMode.STRING : storeMode;
+        this.codec = codec == null ? ChatMemoryCodec.PLAIN : codec;
 
         JedisPoolConfig config = new JedisPoolConfig();
         config.setMaxTotal(50);
@@ -84,33 +164,87 @@ public class CustomRedisChatMemoryStore implements ChatMemoryStore {
         } else {
             this.pool = new JedisPool(config, host, port);
         }
+
+        this.invalidationChannel = invalidationChannel == null ? "chat-memory:invalidation" : invalidationChannel;
+        if (nearCacheMaxBytes > 0) {
+            this.nearCache = Caffeine.newBuilder()
+                    .maximumWeight(nearCacheMaxBytes)
+                    .weigher((String key, List<ChatMessage> messages) -> estimateSize(messages))
+                    .expireAfterAccess(Duration.ofMinutes(30))
+                    .build();
+            Thread.startVirtualThread(this::listenInvalidation);
+        } else {
+            this.nearCache = null;
+        }
     }
 
     @Override
     public List<ChatMessage> getMessages(Object memoryId) {
         String key = prefix + toMemoryId(memoryId);
+        if (nearCache == null) {
+            List<ChatMessage> messages = loadMessages(key);
+            return messages == null ? new ArrayList<>() : messages;
+        }
+        // 加载与写入、失效对同一个 key 互斥，避免旧值覆盖新写入
+        List<ChatMessage> messages = nearCache.get(key, k -> {
+            List<ChatMessage> loaded = loadMessages(k);
+            return loaded == null ? null : List.copyOf(loaded);
+        });
+        return messages == null ? new ArrayList<>() : new ArrayList<>(messages);
+    }
+
+    /**
+     * 从 Redis 读取，读取失败返回 null
+     */
+    private List<ChatMessage> loadMessages(String key) {
         try (Jedis jedis = pool.getResource()) {
             jedis.select(db);
-            String json = jedis.get(key);
-            if (json == null) {
+            if (storeMode == StoreMode.LIST) {
+                return getListMessages(jedis, key);
+            }
+            byte[] bytes = jedis.get(toBytes(key));
+            if (bytes == null) {
                 return new ArrayList<>();
             }
-            return ChatMessageDeserializer.messagesFromJson(json);
+            return ChatMessageDeserializer.messagesFromJson(ChatMemoryCodec.decode(bytes));
         } catch (Exception e) {
-            return new ArrayList<>();
+            log.warn("读取对话记忆失败, key: {}, msg: {}", key, e.getMessage());
+            return null;
         }
     }
 
     @Override
     public void updateMessages(Object memoryId, List<ChatMessage> messages) {
         String key = prefix + toMemoryId(memoryId);
-        String json = ChatMessageSerializer.messagesToJson(messages);
+        try {
+            if (storeMode == StoreMode.LIST) {
+                updateListMessages(key, messages);
+            } else {
+                updateStringMessages(key, messages);
+            }
+        } catch (RuntimeException e) {
+            if (nearCache != null) {
+                nearCache.invalidate(key);
+            }
+            throw e;
+        }
+        if (nearCache != null) {
+            nearCache.put(key, List.copyOf(messages));
+            publishInvalidation(key);
+        }
+    }
+
+    /**
+     * STRING 模式写入
+     */
+    private void updateStringMessages(String key, List<ChatMessage> messages) {
+        byte[] value = codec.encode(ChatMessageSerializer.messagesToJson(messages));
         try (Jedis jedis = pool.getResource()) {
             jedis.select(db);
             if (ttl > 0) {
-                jedis.setex(key, ttl.intValue(), json);
+                jedis.setex(toBytes(key), ttl, value);
             } else {
-                jedis.set(key, json);
+                jedis.set(toBytes(key), value);
             }
         } catch (Exception e) {
             throw new RedisChatMemoryStoreException("Set memory error, msg=" + e.getMessage());
@@ -120,12 +254,255 @@ public class CustomRedisChatMemoryStore implements ChatMemoryStore {
     @Override
     public void deleteMessages(Object memoryId) {
         String key = prefix + toMemoryId(memoryId);
+        writtenFingerprints.invalidate(key);
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
         try (Jedis jedis = pool.getResource()) {
             jedis.select(db);
             jedis.del(key);
         } catch (Exception e) {
 
         }
+        if (nearCache != null) {
+            publishInvalidation(key);
+        }
+    }
+
+    /**
+     * 通知其他节点本地缓存失效，消息格式为 "节点标识:key"
+     */
+    private void publishInvalidation(String key) {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.publish(invalidationChannel, nodeId + ":" + key);
+        } catch (Exception e) {
+            log.warn("发布对话记忆失效通知失败, key: {}, msg: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅其他节点的失效通知，断线后自动重连
+     * 断线期间可能漏掉通知，每次订阅成功时清空本地缓存
+     */
+    private void listenInvalidation() {
+        while (!closed) {
+            JedisPubSub subscriber = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    nearCache.invalidateAll();
+                    writtenFingerprints.invalidateAll();
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    int index = message.indexOf(':');
+                    if (index < 0 || nodeId.equals(message.substring(0, index))) {
+                        return;
+                    }
+                    String key = message.substring(index + 1);
+                    nearCache.invalidate(key);
+                    writtenFingerprints.invalidate(key);
+                }
+            };
+            invalidationSubscriber = subscriber;
+            try (Jedis jedis = pool.getResource()) {
+                // 阻塞直到取消订阅或连接断开
+                jedis.subscribe(subscriber, invalidationChannel);
+            } catch (Exception e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("对话记忆失效通知订阅断开，稍后重连, msg: {}", e.getMessage());
+                nearCache.invalidateAll();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 估算消息列表占用的字节数，用于限制本地缓存大小
+     */
+    private static int estimateSize(List<ChatMessage> messages) {
+        long size = 64;
+        for (ChatMessage message : messages) {
+            int chars = switch (message) {
+                case SystemMessage systemMessage -> systemMessage.text().length();
+                case UserMessage userMessage -> userMessage.hasSingleText() ? userMessage.singleText().length() : 1024;
+                case AiMessage aiMessage -> {
+                    int length = aiMessage.text() == null ? 0 : aiMessage.text().length();
+                    if (aiMessage.hasToolExecutionRequests()) {
+                        for (var request : aiMessage.toolExecutionRequests()) {
+                            length += request.name().length() + (request.arguments() == null ? 0 : request.arguments().length());
+                        }
+                    }
+                    yield length;
+                }
+                case ToolExecutionResultMessage resultMessage -> resultMessage.text().length();
+                default -> 256;
+            };
+            // 对象头与字段开销按 64 字节估算，字符按 UTF-16 计
+            size += 64 + 2L * chars;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 停止失效通知订阅并关闭连接池，由 Spring 在容器关闭时调用
+     */
+    public void close() {
+        closed = true;
+        JedisPubSub subscriber = invalidationSubscriber;
+        if (subscriber != null && subscriber.isSubscribed()) {
+            subscriber.unsubscribe();
+        }
+        pool.close();
+    }
+
+    /**
+     * LIST 模式读取，兼容 STRING 模式写入的旧数据
+     */
+    private List<ChatMessage> getListMessages(Jedis jedis, String key) {
+        List<byte[]> valueList;
+        try {
+            valueList = jedis.lrange(toBytes(key), 0, -1);
+        } catch (JedisDataException e) {
+            // 旧数据为字符串，下次写入时整体覆盖为列表
+            byte[] bytes = jedis.get(toBytes(key));
+            return bytes == null ? new ArrayList<>() : ChatMessageDeserializer.messagesFromJson(ChatMemoryCodec.decode(bytes));
+        }
+        List<ChatMessage> messages = new ArrayList<>(valueList.size());
+        for (byte[] bytes : valueList) {
+            messages.add(ChatMessageDeserializer.messageFromJson(ChatMemoryCodec.decode(bytes)));
+        }
+        return messages;
+    }
+
+    /**
+     * LIST 模式写入
+     * 与上次写入的内容对比：追加的消息 RPUSH，窗口淘汰的消息 LTRIM（保留首条系统消息时再 LSET 回写首条），
+     * 只有无法识别为增量（首次写入、顺序变化、其他节点写入等）时才整体覆盖
+     */
+    private void updateListMessages(String key, List<ChatMessage> messages) {
+        List<String> fingerprints = fingerprints(messages);
+        List<String> previous = writtenFingerprints.getIfPresent(key);
+        WindowDelta delta = previous == null ? null : WindowDelta.compute(previous, fingerprints);
+        try (Jedis jedis = pool.getResource()) {
+            jedis.select(db);
+            if (delta == null || !writeDelta(jedis, key, messages, delta)) {
+                rewriteList(jedis, key, messages);
+            }
+        } catch (Exception e) {
+            writtenFingerprints.invalidate(key);
+            throw new RedisChatMemoryStoreException("Set memory error, msg=" + e.getMessage());
+        }
+        writtenFingerprints.put(key, fingerprints);
+    }
+
+    /**
+     * 增量写入
+     *
+     * @return 写入后列表长度是否与预期一致，不一致说明 Redis 中的数据已被其他写入改变
+     */
+    private boolean writeDelta(Jedis jedis, String key, List<ChatMessage> messages, WindowDelta delta) {
+        List<ChatMessage> appended = messages.subList(delta.retained(), messages.size());
+        if (delta.evicted() == 0 && appended.isEmpty()) {
+            return true;
+        }
+        Transaction transaction = jedis.multi();
+        if (delta.evicted() > 0) {
+            transaction.ltrim(key, delta.evicted(), -1);
+            if (delta.pinned()) {
+                transaction.lset(toBytes(key), 0, codec.encode(ChatMessageSerializer.messageToJson(messages.get(0))));
+            }
+        }
+        Response<Long> length = appended.isEmpty()
+                ? transaction.llen(key)
+                : transaction.rpush(toBytes(key), encodeAll(appended));
+        if (ttl > 0) {
+            transaction.expire(key, ttl);
+        }
+        transaction.exec();
+        try {
+            return length.get() == messages.size();
+        } catch (JedisDataException e) {
+            log.warn("增量写入对话记忆失败，改为整体覆盖, key: {}, msg: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 整体覆盖写入
+     */
+    private void rewriteList(Jedis jedis, String key, List<ChatMessage> messages) {
+        Transaction transaction = jedis.multi();
+        transaction.del(key);
+        if (!messages.isEmpty()) {
+            transaction.rpush(toBytes(key), encodeAll(messages));
+            if (ttl > 0) {
+                transaction.expire(key, ttl);
+            }
+        }
+        transaction.exec();
+    }
+
+    private byte[][] encodeAll(List<ChatMessage> messages) {
+        byte[][] values = new byte[messages.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = codec.encode(ChatMessageSerializer.messageToJson(messages.get(i)));
+        }
+        return values;
+    }
+
+    private static byte[] toBytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 两次写入之间的窗口变化：可选保留首条消息（系统消息），淘汰其后 evicted 条，保留 retained 条旧消息，其余为追加
+     *
+     * @param pinned   是否保留首条消息
+     * @param evicted  淘汰的消息数
+     * @param retained 新列表中来自旧列表的消息数（含保留的首条）
+     */
+    record WindowDelta(boolean pinned, int evicted, int retained) {
+
+        /**
+         * 计算窗口变化，无法表示为"淘汰 + 追加"时返回 null
+         */
+        static WindowDelta compute(List<String> previous, List<String> current) {
+            if (previous.isEmpty()) {
+                return new WindowDelta(false, 0, 0);
+            }
+            for (int pinned = 0; pinned <= 1; pinned++) {
+                if (pinned == 1 && (current.isEmpty() || !previous.get(0).equals(current.get(0)))) {
+                    break;
+                }
+                // 至少保留一条旧消息，否则与整体覆盖无异
+                for (int evicted = 0; evicted < previous.size() - pinned; evicted++) {
+                    int overlap = previous.size() - pinned - evicted;
+                    if (pinned + overlap > current.size()) {
+                        continue;
+                    }
+                    if (previous.subList(pinned + evicted, previous.size()).equals(current.subList(pinned, pinned + overlap))) {
+                        return new WindowDelta(pinned == 1, evicted, pinned + overlap);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 消息指纹：序列化内容的 SHA-256，用于判断两次写入之间哪些消息未变化
+     */
+    private List<String> fingerprints(List<ChatMessage> messages) {
+        return messages.stream()
+                .map(message -> messageFingerprints.get(message, m -> DigestUtil.sha256Hex(ChatMessageSerializer.messageToJson(m))))
+                .toList();
     }
 
     private String toMemoryId(Object memoryId) {
@@ -0,0 +1,700 @@
+package com.xuenai.intelligent.langgraph.checker;
+
+import cn.hutool.core.io.FileUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 代码静态预检
+ * 在调用模型做质量检查前，本地检查生成结果：
+ * 必需文件缺失、引用的本地资源与相对路径模块不存在、JSON 格式错误是确定的错误；@/ 别名的解析依赖构建配置，找不到时只作为可疑问题；
+ * HTML / Vue 模板标签未闭合、JS / CSS 括号与字符串不闭合只是词法级别的推断，可能误报，只作为可疑问题交给模型复核
+ */
+public class StaticCodeChecker {
+
+    /**
+     * 每多少字节代码计 1 分风险，代码越多越需要模型检查
+     */
+    private static final int RISK_BYTES_UNIT = 16 * 1024;
+
+    /**
+     * 每个文件最多报告的问题数，避免一个文件的连锁问题淹没其他问题
+     */
+    private static final int MAX_ERRORS_PER_FILE = 3;
+
+    private static final Set<String> SKIPPED_DIRS = Set.of("node_modules", "dist", "target", ".git");
+
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr");
+
+    /**
+     * 结束标签可以省略的元素
+     */
+    private static final Set<String> OPTIONAL_CLOSE_ELEMENTS = Set.of(
+            "html", "head", "body", "p", "li", "dt", "dd", "option", "optgroup", "tr", "td", "th",
+            "thead", "tbody", "tfoot", "colgroup", "rb", "rt", "rtc", "rp");
+
+    /**
+     * 内容按纯文本处理的元素
+     */
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "textarea", "title");
+
+    /**
+     * 需要检查本地资源是否存在的标签属性
+     */
+    private static final Pattern ASSET_ATTRIBUTE_PATTERN = Pattern.compile("\\b(src|href)\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    private static final Pattern EXTERNAL_URL_PATTERN = Pattern.compile("^(https?:|//|data:|blob:|#|mailto:|tel:|javascript:)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern LOCAL_IMPORT_PATTERN = Pattern.compile(
+            "(?:\\bimport\\s*\\(\\s*|\\bimport\\s+(?:[\\w*{}\\s,$]+\\s+from\\s+)?|\\bfrom\\s+)['\"]((?:\\.{1,2}|@)/[^'\"]+)['\"]");
+
+    private static final Pattern VUE_BLOCK_PATTERN = Pattern.compile("(?s)^<(template|script|style)\\b([^>]*)>(.*)^</\\1>", Pattern.MULTILINE);
+
+    private static final List<String> IMPORT_SUFFIXES = List.of("", ".js", ".ts", ".vue", ".jsx", ".tsx", ".json",
+            "/index.js", "/index.ts", "/index.vue");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private StaticCodeChecker() {
+    }
+
+    /**
+     * 预检结果
+     *
+     * @param errors    确定的错误，存在时无需模型检查即可判定不通过
+     * @param warnings  可疑但不确定的问题（含词法推断的语法问题），需要模型复核
+     * @param codeBytes 参与检查的代码总字节数
+     */
+    public record CheckReport(List<String> errors, List<String> warnings, long codeBytes) {
+
+        /**
+         * 风险分：每条可疑问题计 1 分，每 16KB 代码计 1 分
+         */
+        public long riskScore() {
+            return warnings.size() + codeBytes / RISK_BYTES_UNIT;
+        }
+
+        /**
+         * 没有错误与可疑问题，且风险分低于阈值时可以跳过模型检查
+         *
+         * @param riskThreshold 风险分阈值
+         */
+        public boolean canSkipModelCheck(int riskThreshold) {
+            return errors.isEmpty() && warnings.isEmpty() && riskScore() < riskThreshold;
+        }
+    }
+
+    /**
+     * 检查生成目录
+     *
+     * @param codeDir        生成目录
+     * @param generationType 生成类型
+     * @return 预检结果
+     */
+    public static CheckReport check(String codeDir, CodeGenerateTypeEnum generationType) {
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        File root = codeDir == null ? null : new File(codeDir);
+        if (root == null || !root.isDirectory()) {
+            errors.add("代码目录不存在: " + codeDir);
+            return new CheckReport(errors, warnings, 0);
+        }
+        for (String required : requiredFiles(generationType)) {
+            if (!existsAny(root, required.split("\\|"))) {
+                errors.add("缺少必需的文件: " + required.replace("|", " 或 "));
+            }
+        }
+        long codeBytes = 0;
+        for (File file : FileUtil.loopFiles(root, file -> !isSkipped(root, file))) {
+            String relativePath = relativePath(root, file);
+            String suffix = FileUtil.getSuffix(file).toLowerCase();
+            // 确定的错误与词法推断的可疑问题分开收集
+            List<String> fileErrors = new ArrayList<>();
+            List<String> fileSuspects = new ArrayList<>();
+            String content;
+            switch (suffix) {
+                case "html", "htm" -> {
+                    content = FileUtil.readUtf8String(file);
+                    checkMarkup(content, false, fileSuspects);
+                    checkAssets(root, file, content, fileErrors, warnings);
+                }
+                case "vue" -> {
+                    content = FileUtil.readUtf8String(file);
+                    checkVue(content, fileSuspects);
+                    checkImports(root, file, content, fileErrors, fileSuspects);
+                }
+                case "js", "mjs", "ts" -> {
+                    content = FileUtil.readUtf8String(file);
+                    checkScript(content, fileSuspects);
+                    checkImports(root, file, content, fileErrors, fileSuspects);
+                }
+                case "jsx", "tsx" -> {
+                    // JSX 中的文本会干扰词法检查，只检查模块引用
+                    content = FileUtil.readUtf8String(file);
+                    checkImports(root, file, content, fileErrors, fileSuspects);
+                }
+                case "css", "scss", "less" -> {
+                    content = FileUtil.readUtf8String(file);
+                    checkStyle(content, !"css".equals(suffix), fileSuspects);
+                }
+                case "json" -> {
+                    content = FileUtil.readUtf8String(file);
+                    checkJson(content, fileErrors);
+                }
+                default -> {
+                    continue;
+                }
+            }
+            codeBytes += file.length();
+            fileErrors.stream().limit(MAX_ERRORS_PER_FILE).forEach(error -> errors.add(relativePath + ": " + error));
+            fileSuspects.stream().limit(MAX_ERRORS_PER_FILE).forEach(suspect -> warnings.add(relativePath + ": " + suspect));
+        }
+        return new CheckReport(errors, warnings, codeBytes);
+    }
+
+    private static List<String> requiredFiles(CodeGenerateTypeEnum generationType) {
+        if (generationType == CodeGenerateTypeEnum.VUE_PROJECT) {
+            return List.of("package.json", "index.html", "src/main.js|src/main.ts", "src/App.vue");
+        }
+        return List.of("index.html");
+    }
+
+    /**
+     * 检查 Vue 单文件组件：模板标签闭合、脚本与样式的词法
+     */
+    static void checkVue(String content, List<String> errors) {
+        Matcher matcher = VUE_BLOCK_PATTERN.matcher(content);
+        boolean found = false;
+        while (matcher.find()) {
+            found = true;
+            int lineOffset = lineOf(content, matcher.start(3)) - 1;
+            List<String> blockErrors = new ArrayList<>();
+            switch (matcher.group(1)) {
+                case "template" -> checkMarkup(matcher.group(3), true, blockErrors);
+                case "script" -> checkScript(matcher.group(3), blockErrors);
+                default -> checkStyle(matcher.group(3), matcher.group(2).contains("lang="), blockErrors);
+            }
+            for (String error : blockErrors) {
+                errors.add(shiftLine(error, lineOffset));
+            }
+        }
+        if (!found) {
+            errors.add("没有找到 <template> 或 <script> 区块，或区块未闭合");
+        }
+    }
+
+    /**
+     * 检查标签是否闭合
+     *
+     * @param vue Vue 模板区分大小写，且任意元素都可以自闭合
+     */
+    static void checkMarkup(String content, boolean vue, List<String> errors) {
+        Deque<String> stack = new ArrayDeque<>();
+        Deque<Integer> lines = new ArrayDeque<>();
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            int open = content.indexOf('<', i);
+            if (open < 0 || open + 1 >= length) {
+                break;
+            }
+            int interpolation = vue ? content.indexOf("{{", i) : -1;
+            if (interpolation >= 0 && interpolation < open) {
+                // 插值表达式中的比较运算符不是标签
+                int end = content.indexOf("}}", interpolation + 2);
+                i = end < 0 ? length : end + 2;
+                continue;
+            }
+            char next = content.charAt(open + 1);
+            if (content.startsWith("<!--", open)) {
+                int end = content.indexOf("-->", open + 4);
+                if (end < 0) {
+                    errors.add("第 " + lineOf(content, open) + " 行: 注释未闭合");
+                    return;
+                }
+                i = end + 3;
+                continue;
+            }
+            if (next == '!' || next == '?') {
+                int end = content.indexOf('>', open);
+                i = end < 0 ? length : end + 1;
+                continue;
+            }
+            boolean closing = next == '/';
+            int nameStart = closing ? open + 2 : open + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < length && isTagNameChar(content.charAt(nameEnd), nameEnd == nameStart)) {
+                nameEnd++;
+            }
+            if (nameEnd == nameStart) {
+                // 不是标签，例如文本或插值中的小于号
+                i = open + 1;
+                continue;
+            }
+            int tagEnd = findTagEnd(content, nameEnd);
+            if (tagEnd < 0) {
+                errors.add("第 " + lineOf(content, open) + " 行: 标签 <" + content.substring(nameStart, nameEnd) + "> 没有结束的 >");
+                return;
+            }
+            String rawName = content.substring(nameStart, nameEnd);
+            String name = vue ? rawName : rawName.toLowerCase();
+            boolean selfClosing = content.charAt(tagEnd - 1) == '/';
+            i = tagEnd + 1;
+            if (closing) {
+                if (!closeTag(stack, lines, name)) {
+                    errors.add("第 " + lineOf(content, open) + " 行: 多余的结束标签 </" + rawName + ">");
+                }
+                continue;
+            }
+            if (selfClosing || VOID_ELEMENTS.contains(name.toLowerCase())) {
+                continue;
+            }
+            if (!vue && RAW_TEXT_ELEMENTS.contains(name)) {
+                int close = indexOfIgnoreCase(content, "</" + name, i);
+                int closeEnd = close < 0 ? -1 : content.indexOf('>', close);
+                if (closeEnd < 0) {
+                    errors.add("第 " + lineOf(content, open) + " 行: <" + rawName + "> 未闭合");
+                    return;
+                }
+                i = closeEnd + 1;
+                continue;
+            }
+            stack.push(name);
+            lines.push(lineOf(content, open));
+        }
+        while (!stack.isEmpty()) {
+            String name = stack.pop();
+            int line = lines.pop();
+            if (!OPTIONAL_CLOSE_ELEMENTS.contains(name.toLowerCase())) {
+                errors.add("第 " + line + " 行: <" + name + "> 未闭合");
+            }
+        }
+    }
+
+    /**
+     * 出栈到匹配的开始标签，中间只允许有可省略结束标签的元素
+     *
+     * @return 是否找到匹配的开始标签
+     */
+    private static boolean closeTag(Deque<String> stack, Deque<Integer> lines, String name) {
+        if (!stack.contains(name)) {
+            return false;
+        }
+        for (String open : stack) {
+            if (open.equals(name)) {
+                break;
+            }
+            if (!OPTIONAL_CLOSE_ELEMENTS.contains(open.toLowerCase())) {
+                return false;
+            }
+        }
+        while (!stack.isEmpty()) {
+            lines.pop();
+            if (stack.pop().equals(name)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 找到标签结束的 >，跳过属性值中的引号内容
+     */
+    private static int findTagEnd(String content, int from) {
+        char quote = 0;
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            } else if (c == '<') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isTagNameChar(char c, boolean first) {
+        if (first) {
+            return c < 128 && Character.isLetter(c);
+        }
+        return c < 128 && (Character.isLetterOrDigit(c) || c == '-' || c == ':' || c == '.' || c == '_');
+    }
+
+    /**
+     * 检查 HTML 引用的本地脚本、图片与样式是否存在
+     */
+    private static void checkAssets(File root, File htmlFile, String content, List<String> errors, List<String> warnings) {
+        Matcher matcher = ASSET_ATTRIBUTE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            String reference = matcher.group(2).trim();
+            if (reference.isEmpty() || EXTERNAL_URL_PATTERN.matcher(reference).find()
+                    || reference.contains("{{") || reference.contains("${")) {
+                continue;
+            }
+            String tag = enclosingTagName(content, matcher.start());
+            if ("href".equals(matcher.group(1)) && !"link".equals(tag)) {
+                // 页面链接可能由前端路由处理，不检查
+                continue;
+            }
+            String path = reference.replaceAll("[?#].*$", "");
+            File target = path.startsWith("/") ? new File(root, path) : new File(htmlFile.getParentFile(), path);
+            File publicTarget = path.startsWith("/") ? new File(root, "public" + path) : null;
+            if (target.exists() || (publicTarget != null && publicTarget.exists())) {
+                continue;
+            }
+            if ("link".equals(tag) && !content.substring(content.lastIndexOf('<', matcher.start()), matcher.start()).contains("stylesheet")) {
+                // 图标等非样式资源缺失不影响页面运行
+                warnings.add(relativePath(root, htmlFile) + ": 引用的本地资源不存在 " + reference);
+                continue;
+            }
+            errors.add("第 " + lineOf(content, matcher.start()) + " 行: 引用的本地资源不存在 " + reference);
+        }
+    }
+
+    private static String enclosingTagName(String content, int index) {
+        int open = content.lastIndexOf('<', index);
+        int end = open + 1;
+        while (end < content.length() && Character.isLetterOrDigit(content.charAt(end))) {
+            end++;
+        }
+        return content.substring(open + 1, end).toLowerCase();
+    }
+
+    /**
+     * 检查相对路径与 @/ 别名的模块引用是否存在，注释中的引用不检查
+     * 相对路径找不到是确定的错误；@/ 按 Vite 常见配置解析为 src/，找不到时可能是别名配置不同，记为可疑问题
+     */
+    private static void checkImports(File root, File file, String content, List<String> errors, List<String> suspects) {
+        Matcher matcher = LOCAL_IMPORT_PATTERN.matcher(stripComments(content));
+        while (matcher.find()) {
+            String specifier = matcher.group(1);
+            File base = specifier.startsWith("@/") ? new File(root, "src/" + specifier.substring(2)) : new File(file.getParentFile(), specifier);
+            boolean exists = false;
+            for (String suffix : IMPORT_SUFFIXES) {
+                if (new File(base.getPath() + suffix).isFile()) {
+                    exists = true;
+                    break;
+                }
+            }
+            if (!exists) {
+                (specifier.startsWith("@/") ? suspects : errors)
+                        .add("第 " + lineOf(content, matcher.start()) + " 行: 引用的模块不存在 " + specifier);
+            }
+        }
+    }
+
+    /**
+     * 将行注释、块注释与 HTML 注释替换为空格，保留换行与字符位置，字符串与模板字符串中的内容不受影响
+     */
+    static String stripComments(String content) {
+        StringBuilder sb = new StringBuilder(content);
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            char next = i + 1 < length ? content.charAt(i + 1) : 0;
+            int end;
+            if (c == '\'' || c == '"') {
+                end = findStringEnd(content, i + 1, c);
+                i = end < 0 ? i + 1 : end + 1;
+                continue;
+            }
+            if (c == '`') {
+                end = content.indexOf('`', i + 1);
+                i = end < 0 ? length : end + 1;
+                continue;
+            }
+            if (c == '/' && next == '/') {
+                end = content.indexOf('\n', i);
+            } else if (c == '/' && next == '*') {
+                end = content.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else if (content.startsWith("<!--", i)) {
+                end = content.indexOf("-->", i + 4);
+                end = end < 0 ? length : end + 3;
+            } else {
+                i++;
+                continue;
+            }
+            end = end < 0 ? length : end;
+            for (int j = i; j < end; j++) {
+                if (sb.charAt(j) != '\n') {
+                    sb.setCharAt(j, ' ');
+                }
+            }
+            i = end;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 检查 JS / TS 的括号、字符串、模板字符串、正则与注释是否闭合
+     */
+    static void checkScript(String content, List<String> errors) {
+        checkBrackets(content, true, true, errors);
+    }
+
+    /**
+     * 检查样式的括号、字符串与注释是否闭合
+     *
+     * @param lineComments SCSS / Less 支持 // 注释
+     */
+    static void checkStyle(String content, boolean lineComments, List<String> errors) {
+        checkBrackets(content, false, lineComments, errors);
+    }
+
+    private static void checkJson(String content, List<String> errors) {
+        try {
+            OBJECT_MAPPER.readTree(content);
+        } catch (JsonProcessingException e) {
+            errors.add("JSON 格式错误: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * 词法级别的括号匹配
+     *
+     * @param script       是否为脚本（支持模板字符串与正则字面量）
+     * @param lineComments 是否支持 // 注释
+     */
+    private static void checkBrackets(String content, boolean script, boolean lineComments, List<String> errors) {
+        // 栈中 ` 表示模板字符串，$ 表示模板字符串中的 ${ 表达式
+        Deque<Character> stack = new ArrayDeque<>();
+        Deque<Integer> lines = new ArrayDeque<>();
+        int line = 1;
+        char previous = 0;
+        String previousWord = "";
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            char next = i + 1 < length ? content.charAt(i + 1) : 0;
+            if (!stack.isEmpty() && stack.peek() == '`') {
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (c == '`') {
+                    stack.pop();
+                    lines.pop();
+                    previous = '`';
+                } else if (c == '$' && next == '{') {
+                    stack.push('$');
+                    lines.push(line);
+                    i += 2;
+                    continue;
+                } else if (c == '\n') {
+                    line++;
+                }
+                i++;
+                continue;
+            }
+            if (c == '\n') {
+                line++;
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '/' && next == '/' && lineComments) {
+                int end = content.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = content.indexOf("*/", i + 2);
+                if (end < 0) {
+                    errors.add("第 " + line + " 行: 注释未闭合");
+                    return;
+                }
+                line += countLines(content, i, end);
+                i = end + 2;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                int end = findStringEnd(content, i + 1, c);
+                if (end < 0) {
+                    errors.add("第 " + line + " 行: 字符串未闭合");
+                    return;
+                }
+                i = end + 1;
+                previous = c;
+                previousWord = "";
+                continue;
+            }
+            if (script && c == '`') {
+                stack.push('`');
+                lines.push(line);
+                i++;
+                continue;
+            }
+            if (script && c == '/' && regexAllowed(previous, previousWord)) {
+                int end = findRegexEnd(content, i + 1);
+                if (end > 0) {
+                    i = end + 1;
+                    previous = '/';
+                    previousWord = "";
+                    continue;
+                }
+            }
+            if (c == '(' || c == '[' || c == '{') {
+                stack.push(c);
+                lines.push(line);
+            } else if (c == ')' || c == ']' || c == '}') {
+                char expected = c == ')' ? '(' : c == ']' ? '[' : '{';
+                if (stack.isEmpty()) {
+                    errors.add("第 " + line + " 行: 多余的 " + c);
+                    return;
+                }
+                char open = stack.pop();
+                lines.pop();
+                if (!(open == expected || (c == '}' && open == '$'))) {
+                    errors.add("第 " + line + " 行: " + c + " 与 " + open + " 不匹配");
+                    return;
+                }
+            }
+            if (Character.isJavaIdentifierPart(c)) {
+                int end = i;
+                while (end < length && Character.isJavaIdentifierPart(content.charAt(end))) {
+                    end++;
+                }
+                previousWord = content.substring(i, end);
+                previous = content.charAt(end - 1);
+                i = end;
+                continue;
+            }
+            previous = c;
+            previousWord = "";
+            i++;
+        }
+        if (!stack.isEmpty()) {
+            char open = stack.pop();
+            int openLine = lines.pop();
+            String description = open == '`' ? "模板字符串" : open == '$' ? "模板字符串中的 ${" : String.valueOf(open);
+            errors.add("第 " + openLine + " 行: " + description + " 未闭合");
+        }
+    }
+
+    /**
+     * 根据前一个符号判断 / 是正则字面量的开始还是除号
+     */
+    private static boolean regexAllowed(char previous, String previousWord) {
+        if (!previousWord.isEmpty()) {
+            return Set.of("return", "typeof", "case", "do", "else", "in", "of", "new", "delete", "void", "throw", "yield", "await").contains(previousWord);
+        }
+        return previous == 0 || "(,=:[!&|?{};+-*%<>~^".indexOf(previous) >= 0;
+    }
+
+    private static int findStringEnd(String content, int from, char quote) {
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i;
+            } else if (c == '\n') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 找到正则字面量结束的 /，同一行内找不到时返回 -1（按除号处理）
+     */
+    private static int findRegexEnd(String content, int from) {
+        boolean inClass = false;
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '\n') {
+                return -1;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean existsAny(File root, String... paths) {
+        for (String path : paths) {
+            if (new File(root, path).isFile()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSkipped(File root, File file) {
+        String relativePath = relativePath(root, file);
+        for (String segment : relativePath.split("/")) {
+            if (SKIPPED_DIRS.contains(segment) || segment.startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String relativePath(File root, File file) {
+        return FileUtil.subPath(root.getAbsolutePath(), file.getAbsolutePath()).replace('\\', '/');
+    }
+
+    private static int lineOf(String content, int index) {
+        return countLines(content, 0, index) + 1;
+    }
+
+    private static int countLines(String content, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to && i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int indexOfIgnoreCase(String content, String target, int from) {
+        int length = target.length();
+        for (int i = from; i + length <= content.length(); i++) {
+            if (content.regionMatches(true, i, target, 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 区块内的行号换算为整个文件的行号
+     */
+    private static String shiftLine(String error, int offset) {
+        Matcher matcher = Pattern.compile("^第 (\\d+) 行").matcher(error);
+        if (!matcher.find()) {
+            return error;
+        }
+        return "第 " + (Integer.parseInt(matcher.group(1)) + offset) + " 行" + error.substring(matcher.end());
+    }
+}
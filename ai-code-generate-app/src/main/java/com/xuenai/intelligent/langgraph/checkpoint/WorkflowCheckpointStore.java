@@ -0,0 +1,127 @@
+package com.xuenai.intelligent.langgraph.checkpoint;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xuenai.intelligent.config.WorkflowConfig;
+import com.xuenai.intelligent.langgraph.state.WorkflowContext;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工作流检查点存储
+ * 每个节点完成后把 WorkflowContext 以 JSON 写入 Redis（按应用 ID 存储，记录运行 ID 与最后完成的节点），
+ * 工作流成功结束后删除；失败或服务重启后再次运行时从检查点恢复上下文，跳过已完成的节点
+ */
+@Slf4j
+@Component
+public class WorkflowCheckpointStore {
+
+    private static final String KEY_PREFIX = "workflow:checkpoint:";
+
+    private static final String FIELD_RUN_ID = "runId";
+
+    private static final String FIELD_NODE = "node";
+
+    private static final String FIELD_CONTEXT = "context";
+
+    /**
+     * 只按 WorkflowContext 的字段读写 JSON，不执行 Java 反序列化；忽略未知字段，上下文增删字段后旧检查点仍可读取
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private WorkflowConfig workflowConfig;
+
+    /**
+     * 检查点
+     *
+     * @param runId    运行 ID
+     * @param lastNode 最后完成的节点
+     * @param context  工作流上下文
+     */
+    public record WorkflowCheckpoint(String runId, String lastNode, WorkflowContext context) {
+    }
+
+    /**
+     * 保存检查点，写入失败只记录日志，不影响工作流运行
+     *
+     * @param appId    应用 ID
+     * @param lastNode 最后完成的节点
+     * @param context  工作流上下文
+     */
+    public void save(Long appId, String lastNode, WorkflowContext context) {
+        String key = KEY_PREFIX + appId;
+        try {
+            String serialized = OBJECT_MAPPER.writeValueAsString(context);
+            stringRedisTemplate.opsForHash().putAll(key, Map.of(
+                    FIELD_RUN_ID, context.getRunId(),
+                    FIELD_NODE, lastNode,
+                    FIELD_CONTEXT, serialized
+            ));
+            stringRedisTemplate.expire(key, workflowConfig.getCheckpointTtl());
+        } catch (Exception e) {
+            log.warn("保存工作流检查点失败, appId: {}, 节点: {}, 错误: {}", appId, lastNode, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取检查点
+     *
+     * @param appId 应用 ID
+     * @return 检查点，不存在或无法解析时返回 null
+     */
+    public WorkflowCheckpoint load(Long appId) {
+        try {
+            Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + appId);
+            Object serialized = fields.get(FIELD_CONTEXT);
+            if (serialized == null) {
+                return null;
+            }
+            WorkflowContext context = OBJECT_MAPPER.readValue(serialized.toString(), WorkflowContext.class);
+            // 并行分支会同时记录完成的节点，恢复为并发集合
+            Set<String> completedNodes = ConcurrentHashMap.newKeySet();
+            if (context.getCompletedNodes() != null) {
+                completedNodes.addAll(context.getCompletedNodes());
+            }
+            context.setCompletedNodes(completedNodes);
+            return new WorkflowCheckpoint((String) fields.get(FIELD_RUN_ID), (String) fields.get(FIELD_NODE), context);
+        } catch (Exception e) {
+            log.warn("读取工作流检查点失败, appId: {}, 错误: {}", appId, e.getMessage());
+            delete(appId);
+            return null;
+        }
+    }
+
+    /**
+     * 是否存在未完成的检查点
+     */
+    public boolean exists(Long appId) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY_PREFIX + appId));
+        } catch (Exception e) {
+            log.warn("查询工作流检查点失败, appId: {}, 错误: {}", appId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 删除检查点
+     */
+    public void delete(Long appId) {
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + appId);
+        } catch (Exception e) {
+            log.warn("删除工作流检查点失败, appId: {}, 错误: {}", appId, e.getMessage());
+        }
+    }
+}
@@ -1,73 +1,231 @@
 package com.xuenai.intelligent.langgraph.graph;
 
-import cn.hutool.core.thread.ExecutorBuilder;
-import cn.hutool.core.thread.ThreadFactoryBuilder;
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.IdUtil;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.mode.message.WorkflowProgressMessage;
+import com.xuenai.intelligent.ai.stream.StreamCancellation;
+import com.xuenai.intelligent.config.WorkflowConfig;
+import com.xuenai.intelligent.langgraph.checkpoint.WorkflowCheckpointStore;
 import com.xuenai.intelligent.langgraph.helper.WorkflowStreamHelper;
 import com.xuenai.intelligent.langgraph.model.dto.QualityResult;
 import com.xuenai.intelligent.langgraph.node.*;
 import com.xuenai.intelligent.langgraph.node.concurrent.*;
 import com.xuenai.intelligent.langgraph.state.WorkflowContext;
 import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.CompiledGraph;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.NodeOutput;
 import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
 import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
 import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
 
+/**
+ * 并发代码生成工作流
+ * 工作流图在启动时编译一次供所有运行复用，图片收集的并行分支及分支内的收集任务共享一个虚拟线程执行器；
+ * 同时运行的工作流数量有上限，超出的排队等待，停机时拒绝新的运行并等待运行中的工作流结束
+ */
 @Slf4j
 @Component
 public class CodeGenerateConcurrentWorkflow {
 
     @Resource
     private WorkflowStreamHelper workflowStreamHelper;
-    
+
+    @Resource
+    private WorkflowConfig workflowConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private WorkflowCheckpointStore workflowCheckpointStore;
+
+    private CompiledGraph<MessagesState<String>> compiledWorkflow;
+
+    /**
+     * 并行节点执行器，图片收集任务以 IO 为主，使用虚拟线程
+     */
+    private final ExecutorService parallelNodeExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("Parallel-Image-Collect-", 0).factory());
+
+    private RunnableConfig runnableConfig;
+
+    private Semaphore runPermits;
+
+    private final AtomicInteger activeRuns = new AtomicInteger();
+
+    private final AtomicInteger activeParallelTasks = new AtomicInteger();
+
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init() {
+        compiledWorkflow = createWorkflow();
+        runnableConfig = RunnableConfig.builder()
+                .addParallelNodeExecutor("image_plan", task -> parallelNodeExecutor.execute(() -> {
+                    activeParallelTasks.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        activeParallelTasks.decrementAndGet();
+                    }
+                }))
+                .build();
+        runPermits = new Semaphore(workflowConfig.getMaxConcurrentRuns(), true);
+        Gauge.builder("ai_workflow_active_runs", activeRuns, AtomicInteger::get)
+                .description("运行中的工作流数")
+                .register(meterRegistry);
+        Gauge.builder("ai_workflow_queued_runs", runPermits, Semaphore::getQueueLength)
+                .description("排队等待运行的工作流数")
+                .register(meterRegistry);
+        Gauge.builder("ai_workflow_parallel_tasks", activeParallelTasks, AtomicInteger::get)
+                .description("执行中的并行节点任务数")
+                .register(meterRegistry);
+        log.info("并发工作流编译完成，最大并发运行数: {}", workflowConfig.getMaxConcurrentRuns());
+    }
+
+    /**
+     * 在并行节点执行器上并发执行一组任务，计入并行任务数，超时未完成的任务被取消
+     *
+     * @param tasks   任务列表
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 与任务顺序一致的结果
+     */
+    public <T> List<Future<T>> invokeAllParallelTasks(List<Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        List<Callable<T>> countedTasks = tasks.stream()
+                .<Callable<T>>map(task -> () -> {
+                    activeParallelTasks.incrementAndGet();
+                    try {
+                        return task.call();
+                    } finally {
+                        activeParallelTasks.decrementAndGet();
+                    }
+                })
+                .toList();
+        return parallelNodeExecutor.invokeAll(countedTasks, timeout, unit);
+    }
+
+    /**
+     * 停机时拒绝新的运行，等待运行中的工作流结束后关闭并行节点执行器
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        shuttingDown = true;
+        long deadline = System.nanoTime() + workflowConfig.getDrainTimeout().toNanos();
+        synchronized (activeRuns) {
+            while (activeRuns.get() > 0 && System.nanoTime() < deadline) {
+                activeRuns.wait(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1));
+            }
+        }
+        if (activeRuns.get() > 0) {
+            log.warn("停机等待超时，仍有 {} 个工作流在运行", activeRuns.get());
+        }
+        parallelNodeExecutor.shutdown();
+        if (!parallelNodeExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+            parallelNodeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 包装可从检查点恢复的节点：上下文中记录为已完成时直接跳过，执行成功后记录完成
+     * project_builder 是最后一步，成功后工作流结束、检查点删除，无需包装
+     *
+     * @param nodeId 节点 ID
+     * @param action 节点逻辑
+     * @return 包装后的节点
+     */
+    private static AsyncNodeAction<MessagesState<String>> resumable(String nodeId, AsyncNodeAction<MessagesState<String>> action) {
+        return state -> {
+            WorkflowContext context = WorkflowContext.getContext(state);
+            if (context.getCompletedNodes().contains(nodeId)) {
+                log.info("节点 {} 已在检查点中完成，跳过", nodeId);
+                return CompletableFuture.completedFuture(WorkflowContext.saveContext(context));
+            }
+            return action.apply(state).thenApply(output -> {
+                context.getCompletedNodes().add(nodeId);
+                return output;
+            });
+        };
+    }
+
+    /**
+     * 是否存在可以用该提示词继续的未完成运行（检查点）
+     * 只有重新发送与检查点相同的提示词才视为重试，其他消息是对已有应用的修改，走普通对话，检查点保留到过期
+     *
+     * @param appId          应用 ID
+     * @param originalPrompt 本次提示词
+     */
+    public boolean canResume(Long appId, String originalPrompt) {
+        if (!workflowCheckpointStore.exists(appId)) {
+            return false;
+        }
+        WorkflowCheckpointStore.WorkflowCheckpoint checkpoint = workflowCheckpointStore.load(appId);
+        return checkpoint != null && Objects.equals(checkpoint.context().getOriginalPrompt(), originalPrompt);
+    }
+
     /**
      * 创建并发工作流
+     * 智能路由只依赖原始提示词，与四个图片收集节点一起作为 image_plan 的并行分支执行，在 image_aggregator 汇合，
+     * 不再排在图片收集与提示词增强之后。langgraph4j 的并行分支只能各含一个节点并汇合到同一节点，
+     * 因此路由从 image_plan 而不是 START 分出，否则需要把多步的图片流水线包装成子图
      */
     public CompiledGraph<MessagesState<String>> createWorkflow() {
         try {
             return new MessagesStateGraph<String>()
                     // 添加节点
-                    .addNode("image_plan", ImagePlanNode.create())
-                    .addNode("prompt_enhancer", PromptEnhancerNode.create())
-                    .addNode("router", RouterNode.create())
-                    .addNode("code_generator", CodeGeneratorNode.create())
-                    .addNode("code_quality_check", CodeQualityCheckNode.create())
+                    .addNode("image_plan", resumable("image_plan", ImagePlanNode.create()))
+                    .addNode("prompt_enhancer", resumable("prompt_enhancer", PromptEnhancerNode.create()))
+                    .addNode("router", resumable("router", RouterNode.create()))
+                    .addNode("code_generator", resumable("code_generator", CodeGeneratorNode.create()))
+                    .addNode("code_quality_check", resumable("code_quality_check", CodeQualityCheckNode.create()))
                     .addNode("project_builder", ProjectBuilderNode.create())
-                    .addNode("content_image_collector", ContentImageCollectorNode.create())
-                    .addNode("illustration_collector", IllustrationCollectorNode.create())
-                    .addNode("diagram_collector", DiagramCollectorNode.create())
-                    .addNode("logo_collector", LogoCollectorNode.create())
-                    .addNode("image_aggregator", ImageAggregatorNode.create())
+                    .addNode("content_image_collector", resumable("content_image_collector", ContentImageCollectorNode.create()))
+                    .addNode("illustration_collector", resumable("illustration_collector", IllustrationCollectorNode.create()))
+                    .addNode("diagram_collector", resumable("diagram_collector", DiagramCollectorNode.create()))
+                    .addNode("logo_collector", resumable("logo_collector", LogoCollectorNode.create()))
+                    .addNode("image_aggregator", resumable("image_aggregator", ImageAggregatorNode.create()))
 
                     .addEdge(START, "image_plan")
                     .addEdge("image_plan", "content_image_collector")
                     .addEdge("image_plan", "illustration_collector")
                     .addEdge("image_plan", "diagram_collector")
                     .addEdge("image_plan", "logo_collector")
+                    .addEdge("image_plan", "router")
                     .addEdge("content_image_collector", "image_aggregator")
                     .addEdge("illustration_collector", "image_aggregator")
                     .addEdge("diagram_collector", "image_aggregator")
                     .addEdge("logo_collector", "image_aggregator")
+                    .addEdge("router", "image_aggregator")
                     .addEdge("image_aggregator", "prompt_enhancer")
-                    .addEdge("prompt_enhancer", "router")
-                    .addEdge("router", "code_generator")
+                    .addEdge("prompt_enhancer", "code_generator")
                     .addEdge("code_generator", "code_quality_check")
                     .addConditionalEdges("code_quality_check",
                             edge_async(this::routeAfterQualityCheck),
@@ -85,80 +243,148 @@ public class CodeGenerateConcurrentWorkflow {
 
     /**
      * 执行并发工作流 (Flux 流式返回)
+     * 每个应用同时只能有一次运行，已有运行中的工作流时返回错误，观看进度使用 WorkflowStreamHelper#subscribe
      *
      * @param appId          应用 ID
      * @param originalPrompt 原始提示词
+     * @param generationType 应用记录的生成类型（创建应用时的路由结果），智能路由节点直接沿用；应用未记录类型时为 null，重新路由
      * @return 包含进度信息的流
      */
-    public Flux<String> executeWorkflowFlux(Long appId, String originalPrompt) {
-        return Flux.create(sink -> {
-             workflowStreamHelper.register(appId,sink);
-             Thread.startVirtualThread(() -> {
+    public Flux<StreamMessage> executeWorkflowFlux(Long appId, String originalPrompt, CodeGenerateTypeEnum generationType) {
+        return Flux.defer(() -> {
+            if (!workflowStreamHelper.open(appId)) {
+                log.info("应用 {} 的工作流正在运行，拒绝重复运行", appId);
+                return Flux.error(new BusinessException(ErrorCode.OPERATION_ERROR, "应用正在生成中，请等待本次生成完成"));
+            }
+            Flux<StreamMessage> workflowFlux = workflowStreamHelper.subscribe(appId);
+            StreamCancellation cancellation = workflowStreamHelper.getCancellation(appId);
+            Thread.startVirtualThread(() -> {
+                // 所有订阅者断开时中断工作流线程，阻塞中的代码生成节点随之取消模型调用
+                Runnable unregister = cancellation.register(Thread.currentThread()::interrupt);
+                boolean acquired = false;
+                boolean running = false;
                 try {
-                    CompiledGraph<MessagesState<String>> workflow = createWorkflow();
-                    WorkflowContext initialContext = WorkflowContext.builder()
-                            .appId(appId)
-                            .originalPrompt(originalPrompt)
-                            .currentStep("初始化工作流")
-                            .build();
-
-                    sink.next(formatProgress("start", "开始分析需求并规划工作流...", 0));
-
-                    // 配置并发执行器
-                    ExecutorService pool = ExecutorBuilder.create()
-                            .setCorePoolSize(10)
-                            .setMaxPoolSize(20)
-                            .setWorkQueue(new LinkedBlockingQueue<>(100))
-                            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("Parallel-Image-Collect").build())
-                            .build();
-                    RunnableConfig runnableConfig = RunnableConfig.builder()
-                            .addParallelNodeExecutor("image_plan", pool)
-                            .build();
+                    if (runPermits.availablePermits() == 0) {
+                        workflowStreamHelper.sendChunk(appId, formatProgress("start", "当前生成任务较多，正在排队...", 0));
+                    }
+                    runPermits.acquire();
+                    acquired = true;
+                    if (shuttingDown) {
+                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "服务正在停止，请稍后重试");
+                    }
+                    activeRuns.incrementAndGet();
+                    running = true;
+                    WorkflowContext initialContext = restoreContext(appId, originalPrompt, generationType);
+                    if (initialContext == null) {
+                        initialContext = WorkflowContext.builder()
+                                .appId(appId)
+                                .runId(IdUtil.fastSimpleUUID())
+                                .originalPrompt(originalPrompt)
+                                .generationType(generationType)
+                                .currentStep("初始化工作流")
+                                .build();
+                        workflowStreamHelper.sendChunk(appId, formatProgress("start", "开始分析需求并规划工作流...", 0));
+                    }
 
                     int stepCounter = 1;
-                    for (NodeOutput<MessagesState<String>> step : workflow.stream(
+                    for (NodeOutput<MessagesState<String>> step : compiledWorkflow.stream(
                             Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext),
                             runnableConfig)) {
+                        if (cancellation.isCancelled()) {
+                            break;
+                        }
                         WorkflowContext currentContext = WorkflowContext.getContext(step.state());
                         String nodeName = step.node();
                         log.info("--- 第 {} 步完成: {} ---", stepCounter, nodeName);
+                        if (currentContext != null) {
+                            workflowCheckpointStore.save(appId, nodeName, currentContext);
+                        }
                         
                         if (!"code_generator".equals(nodeName)) {
                             String displayMsg = String.format("步骤 [%s] 执行完成", nodeName);
                             if (currentContext != null && currentContext.getCurrentStep() != null) {
                                 displayMsg = currentContext.getCurrentStep();
                             }
-                            sink.next(formatProgress("processing", displayMsg, stepCounter));
+                            workflowStreamHelper.sendChunk(appId, formatProgress("processing", displayMsg, stepCounter));
                         } else {
-                            sink.next(formatProgress("processing", "代码生成完毕，进行质检...", stepCounter));
+                            workflowStreamHelper.sendChunk(appId, formatProgress("processing", "代码生成完毕，进行质检...", stepCounter));
                         }
                         stepCounter++;
                     }
-                    sink.next(formatProgress("finish", "工作流执行完毕！", stepCounter));
-                    log.info("并发代码生成工作流执行完成！");
-                    sink.complete();
+                    if (cancellation.isCancelled()) {
+                        log.info("工作流已取消, appId: {}", appId);
+                    } else {
+                        workflowCheckpointStore.delete(appId);
+                        workflowStreamHelper.sendChunk(appId, formatProgress("finish", "工作流执行完毕！", stepCounter));
+                        log.info("并发代码生成工作流执行完成！");
+                    }
+                    workflowStreamHelper.complete(appId);
                 } catch (Exception e) {
+                    if (cancellation.isCancelled()) {
+                        log.info("工作流已取消, appId: {}", appId);
+                        workflowStreamHelper.complete(appId);
+                        return;
+                    }
                     log.error("工作流执行失败: {}", e.getMessage(), e);
-                    sink.next(formatProgress("error", "执行失败: " + e.getMessage(), -1));
-                    sink.error(e);
+                    workflowStreamHelper.sendChunk(appId, formatProgress("error", "执行失败: " + e.getMessage(), -1));
+                    workflowStreamHelper.error(appId, e);
                 } finally {
-                    workflowStreamHelper.remove(appId);
+                    if (acquired) {
+                        runPermits.release();
+                    }
+                    if (running) {
+                        finishRun();
+                    }
+                    unregister.run();
+                    // 清除取消时可能残留的中断标记
+                    Thread.interrupted();
                 }
-             });
+            });
+            return workflowFlux;
         });
     }
 
     /**
-     * 格式化进度消息为 JSON 字符串
+     * 从检查点恢复上下文，提示词与检查点不一致时丢弃检查点
+     *
+     * @return 恢复的上下文，没有可用检查点时返回 null
+     */
+    private WorkflowContext restoreContext(Long appId, String originalPrompt, CodeGenerateTypeEnum generationType) {
+        WorkflowCheckpointStore.WorkflowCheckpoint checkpoint = workflowCheckpointStore.load(appId);
+        if (checkpoint == null) {
+            return null;
+        }
+        WorkflowContext context = checkpoint.context();
+        if (!Objects.equals(context.getOriginalPrompt(), originalPrompt)) {
+            log.info("应用 {} 的提示词已变化，丢弃运行 {} 的检查点", appId, checkpoint.runId());
+            workflowCheckpointStore.delete(appId);
+            return null;
+        }
+        if (context.getGenerationType() == null) {
+            context.setGenerationType(generationType);
+        }
+        context.setRetryCount(0);
+        context.setErrorMessage(null);
+        context.setCurrentStep("从检查点恢复");
+        log.info("应用 {} 从检查点恢复运行 {}，最后完成的节点: {}，已完成: {}", appId, checkpoint.runId(), checkpoint.lastNode(), context.getCompletedNodes());
+        workflowStreamHelper.sendChunk(appId, formatProgress("start", "检测到上次未完成的生成，从中断处继续...", 0));
+        return context;
+    }
+
+    private void finishRun() {
+        synchronized (activeRuns) {
+            if (activeRuns.decrementAndGet() == 0) {
+                activeRuns.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 构造进度消息，在 SSE 出口处编码
      * 前端接收逻辑: response.d -> JSON.parse -> { type, content, step }
      */
-    private String formatProgress(String type,String content,int step) {
-        Map<String,Object> map = Map.of(
-                "type",type,
-                "content",content,
-                "step",step
-        );
-        return JSONUtil.toJsonStr(map);
+    private WorkflowProgressMessage formatProgress(String type, String content, int step) {
+        return new WorkflowProgressMessage(type, content, step);
     }
 
     /**
@@ -182,6 +408,9 @@ public class CodeGenerateConcurrentWorkflow {
 
             log.error("代码质检失败，正在进行第 {} 次重试", currentRetry + 1);
             context.setRetryCount(currentRetry + 1);
+            // 重新生成的代码需要重新质检，从检查点恢复时也不能跳过
+            context.getCompletedNodes().remove("code_generator");
+            context.getCompletedNodes().remove("code_quality_check");
             return "fail";
         }
 
@@ -1,43 +1,137 @@
 package com.xuenai.intelligent.langgraph.helper;
 
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import com.xuenai.intelligent.ai.stream.StreamCancellation;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 工作流流式通信助手
  * 用于在 LangGraph 节点内部将数据推送到外层的 SSE 流中
+ * 每个 appId 对应一个多播通道，支持多个客户端同时观看同一次工作流运行；
+ * 最后一个订阅者取消时触发通道的取消令牌，中止工作流
  */
+@Slf4j
 @Component
 public class WorkflowStreamHelper {
 
-    // 存储 appId -> FluxSink 的映射
-    private final Map<Long, FluxSink<String>> sinkMap = new ConcurrentHashMap<>();
+    /**
+     * 通道保留的最近消息数，供中途加入的订阅者回放
+     */
+    private static final int HISTORY_SIZE = 256;
+
+    /**
+     * 单个订阅者的缓冲上限，消费过慢时丢弃最旧的消息，不阻塞节点线程
+     */
+    private static final int SUBSCRIBER_BUFFER_SIZE = 2048;
+
+    // 存储 appId -> 多播通道 的映射
+    private final Map<Long, WorkflowChannel> channelMap = new ConcurrentHashMap<>();
+
+    /**
+     * 打开流通道 (在工作流启动时调用)
+     *
+     * @return 是否新建成功，该应用已有运行中的工作流时返回 false
+     */
+    public boolean open(Long appId) {
+        return channelMap.putIfAbsent(appId, new WorkflowChannel()) == null;
+    }
+
+    /**
+     * 是否有运行中的工作流
+     */
+    public boolean isRunning(Long appId) {
+        return channelMap.containsKey(appId);
+    }
+
+    /**
+     * 获取通道的取消令牌
+     *
+     * @return 取消令牌，通道不存在时返回 null
+     */
+    public StreamCancellation getCancellation(Long appId) {
+        WorkflowChannel channel = channelMap.get(appId);
+        return channel == null ? null : channel.cancellation;
+    }
 
     /**
-     * 注册流通道 (在工作流启动时调用)
+     * 订阅流通道，先回放最近的消息再接收实时消息
+     *
+     * @return 消息流，通道不存在时返回空流
      */
-    public void register(Long appId, FluxSink<String> sink) {
-        sinkMap.put(appId, sink);
+    public Flux<StreamMessage> subscribe(Long appId) {
+        WorkflowChannel channel = channelMap.get(appId);
+        if (channel == null) {
+            return Flux.empty();
+        }
+        return channel.sink.asFlux()
+                .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE,
+                        dropped -> log.warn("订阅者消费过慢，丢弃消息, appId: {}", appId),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(subscription -> channel.subscribers.incrementAndGet())
+                .doFinally(signalType -> {
+                    if (channel.subscribers.decrementAndGet() == 0 && signalType == SignalType.CANCEL) {
+                        log.info("工作流已无订阅者，取消执行, appId: {}", appId);
+                        channel.cancellation.cancel();
+                    }
+                });
     }
 
     /**
      * 发送数据块 (在节点内部调用)
-     * 这里发送的 chunk 就是纯文本 token，Controller 会自动封装成 {"d": chunk}
+     * 这里发送的是类型化消息，Controller 会统一编码成 {"d": chunk}
+     */
+    public void sendChunk(Long appId, StreamMessage chunk) {
+        WorkflowChannel channel = channelMap.get(appId);
+        if (channel != null) {
+            // 并行节点可能同时推送，串行化发送
+            synchronized (channel) {
+                channel.sink.tryEmitNext(chunk);
+            }
+        }
+    }
+
+    /**
+     * 结束并移除流通道 (工作流结束时调用)
      */
-    public void sendChunk(Long appId, String chunk) {
-        FluxSink<String> sink = sinkMap.get(appId);
-        if (sink != null) {
-            sink.next(chunk);
+    public void complete(Long appId) {
+        WorkflowChannel channel = channelMap.remove(appId);
+        if (channel != null) {
+            synchronized (channel) {
+                channel.sink.tryEmitComplete();
+            }
         }
     }
 
     /**
-     * 移除流通道 (工作流结束时调用)
+     * 以异常结束并移除流通道 (工作流失败时调用)
      */
-    public void remove(Long appId) {
-        sinkMap.remove(appId);
+    public void error(Long appId, Throwable error) {
+        WorkflowChannel channel = channelMap.remove(appId);
+        if (channel != null) {
+            synchronized (channel) {
+                channel.sink.tryEmitError(error);
+            }
+        }
+    }
+
+    /**
+     * 单次工作流运行的通道
+     */
+    private static class WorkflowChannel {
+
+        private final Sinks.Many<StreamMessage> sink = Sinks.many().replay().limit(HISTORY_SIZE);
+
+        private final StreamCancellation cancellation = new StreamCancellation();
+
+        private final AtomicInteger subscribers = new AtomicInteger();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.xuenai.intelligent.langgraph.node;
 
 import com.xuenai.intelligent.ai.core.AiCodeGenerateFacade;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import com.xuenai.aicodegenerate.constant.AppConstant;
 import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
@@ -42,7 +43,7 @@ public class CodeGeneratorNode {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "工作流上下文丢失 appId");
             }
             // 调用流式代码生成
-            Flux<String> codeStream = codeGeneratorFacade.generateStreamAndSaveCode(userMessage, generationType, appId);
+            Flux<StreamMessage> codeStream = codeGeneratorFacade.generateStreamAndSaveCode(userMessage, generationType, appId);
             try {
                 codeStream.doOnNext(chunk -> {
                     streamHelper.sendChunk(appId, chunk);
@@ -2,7 +2,10 @@ package com.xuenai.intelligent.langgraph.node;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import com.xuenai.intelligent.ai.service.CodeQualityCheckService;
+import com.xuenai.intelligent.config.WorkflowConfig;
+import com.xuenai.intelligent.langgraph.checker.StaticCodeChecker;
 import com.xuenai.intelligent.langgraph.model.dto.QualityResult;
 import com.xuenai.intelligent.langgraph.state.WorkflowContext;
 import com.xuenai.aicodegenerate.utils.SpringContextUtil;
@@ -18,6 +21,8 @@ import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
 
 /**
  * 代码质量检查节点
+ * 先做本地静态预检：有确定的错误直接判定不通过，没有任何问题且风险分低于阈值时跳过模型检查，
+ * 其余情况由模型检查，预检发现的可疑问题一并交给模型复核
  */
 @Slf4j
 public class CodeQualityCheckNode {
@@ -30,6 +35,24 @@ public class CodeQualityCheckNode {
             String generatedCodeDir = context.getGeneratedCodeDir();
             QualityResult qualityResult;
             try {
+                // 文件写入是异步落盘的，检查前先刷新到磁盘
+                SpringContextUtil.getBean(ProjectFileSystem.class).flush(generatedCodeDir);
+                StaticCodeChecker.CheckReport report = StaticCodeChecker.check(generatedCodeDir, context.getGenerationType());
+                int riskThreshold = SpringContextUtil.getBean(WorkflowConfig.class).getQualityCheckRiskThreshold();
+                if (!report.errors().isEmpty()) {
+                    log.info("静态预检未通过, 错误数: {}", report.errors().size());
+                    context.setCurrentStep("代码质量检查");
+                    context.setQualityResult(QualityResult.builder().isValid(false).errors(report.errors())
+                            .suggestions(List.of("请补全缺失的文件，确保引用的文件都存在、JSON 格式正确")).build());
+                    return WorkflowContext.saveContext(context);
+                }
+                if (report.canSkipModelCheck(riskThreshold)) {
+                    log.info("静态预检通过, 风险分: {}, 跳过模型检查", report.riskScore());
+                    context.setCurrentStep("代码质量检查");
+                    context.setQualityResult(QualityResult.builder().isValid(true).errors(List.of())
+                            .suggestions(List.of()).build());
+                    return WorkflowContext.saveContext(context);
+                }
                 // 读取并拼接代码文件内容
                 String codeContent = readAndConcatenateCodeFiles(generatedCodeDir);
                 if (StrUtil.isBlank(codeContent)) {
@@ -39,6 +62,9 @@ public class CodeQualityCheckNode {
                     // 调用 AI 进行代码质量检查
                     CodeQualityCheckService qualityCheckService = SpringContextUtil.getBean(CodeQualityCheckService.class);
                     String userPromptContext = "请根据 System Prompt 中的规则，检查以下项目代码的质量和可运行性：\n\n" + codeContent;
+                    if (!report.warnings().isEmpty()) {
+                        userPromptContext += "\n\n# 本地预检发现的可疑问题（词法推断，可能误报，请逐条核实）\n\n- " + String.join("\n- ", report.warnings());
+                    }
                     // 调用接口
                     qualityResult = qualityCheckService.checkCodeQuality(userPromptContext);
                     log.info("代码质量检查完成 - 是否通过: {}", qualityResult.getIsValid());;
@@ -12,7 +12,7 @@ import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
 
 /**
  * 智能路由节点
- * 根据用户原始提示词选择对应的网站生成方式
+ * 根据用户原始提示词选择对应的网站生成方式；上下文中已有生成类型（创建应用时已路由）时直接沿用，不再调用模型
  */
 @Slf4j
 public class RouterNode {
@@ -21,6 +21,11 @@ public class RouterNode {
         return node_async(state -> {
             WorkflowContext context = WorkflowContext.getContext(state);
             log.info("执行节点: 智能路由");
+            if (context.getGenerationType() != null) {
+                log.info("沿用应用已确定的生成类型: {} ({})", context.getGenerationType().getValue(), context.getGenerationType().getText());
+                context.setCurrentStep("智能路由");
+                return WorkflowContext.saveContext(context);
+            }
 
             CodeGenerateTypeEnum generationType;
             try {
@@ -29,12 +29,8 @@ public class ContentImageCollectorNode {
                 if (plan != null && plan.getContentImageTasks() != null) {
                     ImageSearchTool imageSearchTool = SpringContextUtil.getBean(ImageSearchTool.class);
                     log.info("开始并发收集内容图片，任务数: {}", plan.getContentImageTasks().size());
-                    for (ImageCollectionPlan.ImageSearchTask task : plan.getContentImageTasks()) {
-                        List<ImageResource> images = imageSearchTool.searchContentImages(task.queryEn(), task.queryZh());
-                        if (images != null) {
-                            contentImages.addAll(images);
-                        }
-                    }
+                    contentImages.addAll(ImageCollectTasks.collectAll("内容图片收集", plan.getContentImageTasks(),
+                            task -> imageSearchTool.searchContentImages(task.queryEn(), task.queryZh())));
                     log.info("内容图片收集完成，共收集到 {} 张图片", contentImages.size());
                 }
             } catch (Exception e) {
@@ -29,12 +29,8 @@ public class DiagramCollectorNode {
                 if (plan != null && plan.getDiagramTasks() != null) {
                     MermaidDiagramTool diagramTool = SpringContextUtil.getBean(MermaidDiagramTool.class);
                     log.info("开始并发生成架构图，任务数: {}", plan.getDiagramTasks().size());
-                    for (ImageCollectionPlan.DiagramTask task : plan.getDiagramTasks()) {
-                        List<ImageResource> images = diagramTool.generateArchitectureDiagram(task.mermaidCode(), task.description());
-                        if (images != null) {
-                            diagrams.addAll(images);
-                        }
-                    }
+                    diagrams.addAll(ImageCollectTasks.collectAll("架构图生成", plan.getDiagramTasks(),
+                            task -> diagramTool.generateArchitectureDiagram(task.mermaidCode(), task.description())));
                     log.info("架构图生成完成，共生成 {} 张图片", diagrams.size());
                 }
             } catch (Exception e) {
@@ -29,12 +29,8 @@ public class IllustrationCollectorNode {
                 if (plan != null && plan.getIllustrationTasks() != null) {
                     PixabayIllustrationTool illustrationTool = SpringContextUtil.getBean(PixabayIllustrationTool.class);
                     log.info("开始并发收集插画图片，任务数: {}", plan.getIllustrationTasks().size());
-                    for (ImageCollectionPlan.IllustrationTask task : plan.getIllustrationTasks()) {
-                        List<ImageResource> images = illustrationTool.searchIllustrations(task.queryEn(), task.queryZh());
-                        if (images != null) {
-                            illustrations.addAll(images);
-                        }
-                    }
+                    illustrations.addAll(ImageCollectTasks.collectAll("插画图片收集", plan.getIllustrationTasks(),
+                            task -> illustrationTool.searchIllustrations(task.queryEn(), task.queryZh())));
                     log.info("插画图片收集完成，共收集到 {} 张图片", illustrations.size());
                 }
             } catch (Exception e) {
@@ -0,0 +1,78 @@
+package com.xuenai.intelligent.langgraph.node.concurrent;
+
+import com.xuenai.aicodegenerate.utils.SpringContextUtil;
+import com.xuenai.intelligent.config.WorkflowConfig;
+import com.xuenai.intelligent.langgraph.graph.CodeGenerateConcurrentWorkflow;
+import com.xuenai.intelligent.langgraph.model.dto.ImageResource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 图片收集任务的并发执行
+ * 同一分支内的任务在工作流的并行节点执行器上各自占用一个虚拟线程，整个分支受统一的截止时间约束：
+ * 超时未完成的任务被取消，已完成任务的结果按任务顺序保留
+ */
+@Slf4j
+public class ImageCollectTasks {
+
+    private ImageCollectTasks() {
+    }
+
+    /**
+     * 并发执行分支内的所有任务
+     *
+     * @param branch    分支名称，用于日志
+     * @param tasks     任务列表
+     * @param collector 单个任务的收集逻辑
+     * @return 所有按时完成的任务收集到的图片
+     */
+    public static <T> List<ImageResource> collectAll(String branch, List<T> tasks, Function<T, List<ImageResource>> collector) {
+        List<ImageResource> result = new ArrayList<>();
+        if (tasks == null || tasks.isEmpty()) {
+            return result;
+        }
+        List<Callable<List<ImageResource>>> callables = tasks.stream()
+                .<Callable<List<ImageResource>>>map(task -> () -> collector.apply(task))
+                .toList();
+        long deadlineMillis = SpringContextUtil.getBean(WorkflowConfig.class).getImageCollectDeadline().toMillis();
+        List<Future<List<ImageResource>>> futures;
+        try {
+            // 超时后未完成的任务会被取消（中断）
+            futures = SpringContextUtil.getBean(CodeGenerateConcurrentWorkflow.class)
+                    .invokeAllParallelTasks(callables, deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{}被中断", branch);
+            return result;
+        }
+        int timedOut = 0;
+        for (Future<List<ImageResource>> future : futures) {
+            if (future.isCancelled()) {
+                timedOut++;
+                continue;
+            }
+            try {
+                List<ImageResource> images = future.get();
+                if (images != null) {
+                    result.addAll(images);
+                }
+            } catch (ExecutionException e) {
+                log.error("{}任务失败: {}", branch, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (timedOut > 0) {
+            log.warn("{}有 {} 个任务超过 {} 毫秒未完成，保留已完成的结果", branch, timedOut, deadlineMillis);
+        }
+        return result;
+    }
+}
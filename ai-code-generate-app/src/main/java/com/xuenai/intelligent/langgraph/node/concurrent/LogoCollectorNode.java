@@ -29,12 +29,8 @@ public class LogoCollectorNode {
                 if (plan != null && plan.getLogoTasks() != null) {
                     LogoGeneratorTool logoTool = SpringContextUtil.getBean(LogoGeneratorTool.class);
                     log.info("开始并发生成Logo, 任务数: {}", plan.getLogoTasks().size());
-                    for (ImageCollectionPlan.LogoTask task : plan.getLogoTasks()) {
-                        List<ImageResource> images = logoTool.generateLogo(task.description());
-                        if (images != null) {
-                            logos.addAll(images);
-                        }
-                    }
+                    logos.addAll(ImageCollectTasks.collectAll("Logo生成", plan.getLogoTasks(),
+                            task -> logoTool.generateLogo(task.description())));
                     log.info("Logo生成完成, 共生成 {} 张图片", logos.size());
                 }
             } catch (Exception e) {
@@ -14,6 +14,8 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 工作流上下文 - 存储所有状态信息
@@ -47,6 +49,17 @@ public class WorkflowContext implements Serializable {
      */
     private Long appId;
 
+    /**
+     * 运行 ID，从检查点恢复时沿用原运行的 ID
+     */
+    private String runId;
+
+    /**
+     * 已完成且结果可复用的节点，从检查点恢复时跳过这些节点
+     */
+    @Builder.Default
+    private Set<String> completedNodes = ConcurrentHashMap.newKeySet();
+
     /**
      * 图片资源字符串
      */
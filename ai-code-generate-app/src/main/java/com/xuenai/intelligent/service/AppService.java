@@ -8,6 +8,7 @@ import com.xuenai.aicodegenerate.model.dto.app.AppQueryRequest;
 import com.xuenai.aicodegenerate.model.entity.App;
 import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.vo.app.AppVO;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import reactor.core.publisher.Flux;
 
 /**
@@ -24,9 +25,18 @@ public interface AppService extends IService<App> {
      * @param appId     应用 ID
      * @param message   对话信息
      * @param loginUser 用户
-     * @return 响应式流
+     * @return 类型化的响应式流（在 SSE 出口处统一编码）
      */
-    Flux<String> chatToGenerateCode(Long appId, String message, User loginUser);
+    Flux<StreamMessage> chatToGenerateCode(Long appId, String message, User loginUser);
+
+    /**
+     * 观看应用进行中的工作流（应用创建者或管理员）
+     *
+     * @param appId     应用 ID
+     * @param loginUser 用户
+     * @return 类型化的响应式流，没有运行中的工作流时返回空流
+     */
+    Flux<StreamMessage> watchWorkflow(Long appId, User loginUser);
 
     /**
      * 部署应用
@@ -6,7 +6,7 @@ import com.mybatisflex.core.service.IService;
 import com.xuenai.aicodegenerate.model.dto.chat.history.ChatHistoryQueryRequest;
 import com.xuenai.aicodegenerate.model.entity.ChatHistory;
 import com.xuenai.aicodegenerate.model.entity.User;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 
 import java.time.LocalDateTime;
 
@@ -61,12 +61,13 @@ public interface ChatHistoryService extends IService<ChatHistory> {
     /**
      * 将对话历史加载到内存中
      *
-     * @param appId      应用 ID
-     * @param chatMemory 内存
-     * @param maxCount   加载最大数量
+     * @param appId       应用 ID
+     * @param memoryId    记忆 ID
+     * @param memoryStore 对话记忆使用的存储链，回填与正常写入经过相同的转换
+     * @param maxCount    加载最大数量，与记忆的消息窗口一致
      * @return 加载的数量
      */
-    int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+    int loadChatHistoryToMemory(Long appId, Object memoryId, ChatMemoryStore memoryStore, int maxCount);
 
     /**
      * 分页获取历史记录
@@ -11,6 +11,7 @@ import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.xuenai.intelligent.ai.builder.VueProjectBuilder;
 import com.xuenai.intelligent.ai.core.AiCodeGenerateFacade;
 import com.xuenai.intelligent.ai.handler.StreamHandlerExecutor;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
 import com.xuenai.intelligent.ai.mode.result.ProjectInfoResult;
 import com.xuenai.intelligent.ai.service.AiCodeGenerateTypeRoutingService;
 import com.xuenai.aicodegenerate.constant.AppConstant;
@@ -18,6 +19,7 @@ import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
 import com.xuenai.aicodegenerate.exception.ThrowUtils;
 import com.xuenai.intelligent.langgraph.graph.CodeGenerateConcurrentWorkflow;
+import com.xuenai.intelligent.langgraph.helper.WorkflowStreamHelper;
 import com.xuenai.intelligent.mapper.AppMapper;
 import com.xuenai.aicodegenerate.model.dto.app.AppAddRequest;
 import com.xuenai.aicodegenerate.model.dto.app.AppQueryRequest;
@@ -26,6 +28,7 @@ import com.xuenai.aicodegenerate.model.entity.User;
 import com.xuenai.aicodegenerate.model.enums.AppDeployStatusEnum;
 import com.xuenai.aicodegenerate.model.enums.ChatHistoryMessageTypeEnum;
 import com.xuenai.aicodegenerate.model.enums.CodeGenerateTypeEnum;
+import com.xuenai.aicodegenerate.model.enums.UserRoleEnum;
 import com.xuenai.aicodegenerate.model.vo.app.AppVO;
 import com.xuenai.aicodegenerate.model.vo.user.UserVO;
 import com.xuenai.intelligent.monitor.MonitorContext;
@@ -82,9 +85,12 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
+    @Resource
+    private WorkflowStreamHelper workflowStreamHelper;
+
 
     @Override
-    public Flux<String> chatToGenerateCode(Long appId, String message, User loginUser) {
+    public Flux<StreamMessage> chatToGenerateCode(Long appId, String message, User loginUser) {
         ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
         ThrowUtils.throwIf(message == null, ErrorCode.PARAMS_ERROR, "提示词不能为空");
 
@@ -96,6 +102,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         CodeGenerateTypeEnum generatorTypeEnum = CodeGenerateTypeEnum.getEnumByValue(type);
         ThrowUtils.throwIf(generatorTypeEnum == null, ErrorCode.PARAMS_ERROR, "应用代码生成类型错误");
 
+        // 工作流运行期间不接受新的对话，否则提示词会被忽略且重复记录历史，观看进度走 watchWorkflow
+        ThrowUtils.throwIf(workflowStreamHelper.isRunning(appId), ErrorCode.OPERATION_ERROR, "应用正在生成中，请等待本次生成完成");
+
         long historyCount = chatHistoryService.countByAppId(appId);
         chatHistoryService.createChatHistory(appId, loginUser.getId(), message, ChatHistoryMessageTypeEnum.USER.getValue());
 
@@ -106,16 +115,18 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
                         .build()
         );
         
-        boolean isFirstCreation = (historyCount == 0);
+        // 首次生成失败或中断后留有检查点，重新发送相同的提示词时继续走工作流，从检查点恢复
+        boolean isFirstCreation = historyCount == 0 || codeGenerateConcurrentWorkflow.canResume(appId, message);
         
         if (isFirstCreation) {
-            Flux<String> workflowFlux = codeGenerateConcurrentWorkflow.executeWorkflowFlux(appId, message);
+            // 创建应用时已完成路由，工作流沿用应用记录的生成类型，保证生成目录与应用类型一致
+            Flux<StreamMessage> workflowFlux = codeGenerateConcurrentWorkflow.executeWorkflowFlux(appId, message, generatorTypeEnum);
             return streamHandlerExecutor.doExecuteWorkflow(workflowFlux, chatHistoryService, appId, loginUser)
                     .doFinally(signalType -> {
                         MonitorContextHolder.clearContext();
                     });
         } else {
-            Flux<String> stream = aiCodeGenerateFacade.generateStreamAndSaveCode(message, generatorTypeEnum, appId);
+            Flux<StreamMessage> stream = aiCodeGenerateFacade.generateStreamAndSaveCode(message, generatorTypeEnum, appId);
             return streamHandlerExecutor.doExecute(stream, chatHistoryService, appId, loginUser, generatorTypeEnum)
                     .doFinally(signalType -> {
                         MonitorContextHolder.clearContext();
@@ -123,6 +134,17 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         }
     }
 
+    @Override
+    public Flux<StreamMessage> watchWorkflow(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        boolean isAdmin = UserRoleEnum.ADMIN.getValue().equals(loginUser.getRole());
+        boolean isOwner = Objects.equals(app.getUserId(), loginUser.getId());
+        ThrowUtils.throwIf(!isAdmin && !isOwner, ErrorCode.NO_AUTH_ERROR, "无权限操作该应用");
+        return streamHandlerExecutor.doWatchWorkflow(workflowStreamHelper.subscribe(appId));
+    }
+
     @Override
     public String deployApp(Long appId, User loginUser) {
         ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
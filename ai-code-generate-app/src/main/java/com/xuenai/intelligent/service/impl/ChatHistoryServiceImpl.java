@@ -23,7 +23,7 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.ChatMessageType;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -31,6 +31,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -112,7 +113,7 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     }
 
     @Override
-    public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+    public int loadChatHistoryToMemory(Long appId, Object memoryId, ChatMemoryStore memoryStore, int maxCount) {
         try {
             QueryWrapper queryWrapper = QueryWrapper.create().eq("app_id", appId).orderBy("create_time", false)
                     // 注意: 需要排除最新的一条用户信息
@@ -120,17 +121,17 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
             List<ChatHistory> chatHistories = this.list(queryWrapper);
             if (CollectionUtils.isEmpty(chatHistories)) return 0;
             chatHistories = chatHistories.reversed();
-            int loadedCount = 0;
-            chatMemory.clear();
+            // 先组装完整窗口再一次性写入，避免逐条 add 导致每条消息都整体写一次 Redis
+            List<ChatMessage> messages = new ArrayList<>(chatHistories.size());
             for (ChatHistory chatHistory : chatHistories) {
                 if (ChatHistoryMessageTypeEnum.USER.getValue().equals(chatHistory.getMessageType())) {
-                    chatMemory.add(UserMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
+                    messages.add(UserMessage.from(chatHistory.getMessage()));
                 } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(chatHistory.getMessageType())) {
-                    chatMemory.add(AiMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
+                    messages.add(AiMessage.from(chatHistory.getMessage()));
                 }
             }
+            int loadedCount = messages.size();
+            memoryStore.updateMessages(memoryId, messages);
             log.info("应用 {} 加载 {} 条历史记录到内存中", appId, loadedCount);
             return loadedCount;
         } catch (Exception e) {
@@ -2,14 +2,18 @@ package com.xuenai.intelligent.service.impl;
 
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.ZipUtil;
+import com.xuenai.aicodegenerate.exception.BusinessException;
 import com.xuenai.aicodegenerate.exception.ErrorCode;
 import com.xuenai.aicodegenerate.exception.ThrowUtils;
+import com.xuenai.intelligent.ai.fs.ProjectFileSystem;
 import com.xuenai.intelligent.service.ProjectDownloadService;
+import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.FileFilter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -19,6 +23,9 @@ import java.util.Set;
 @Service
 public class ProjectDownloadServiceImpl implements ProjectDownloadService {
 
+    @Resource
+    private ProjectFileSystem projectFileSystem;
+
     /**
      * 需要过滤的文件和目录名称
      */
@@ -49,6 +56,13 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
     public void downloadProjectAsZip(String projectPath, String projectName, HttpServletResponse response) {
         ThrowUtils.throwIf(StrUtil.isBlank(projectName), ErrorCode.PARAMS_ERROR,"项目路径不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(projectName), ErrorCode.PARAMS_ERROR,"下载文件名不能为空");
+        // 工具写入的文件异步刷盘，打包前确保全部落盘
+        try {
+            projectFileSystem.flush(projectPath);
+        } catch (IOException e) {
+            log.error("项目文件未能全部写入磁盘: {}", projectPath, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "项目文件保存失败，请稍后重试");
+        }
         File projectDir = new File(projectPath);
         ThrowUtils.throwIf(!projectDir.exists(),ErrorCode.NOT_FOUND_ERROR,"项目目录不存在");
         ThrowUtils.throwIf(!projectDir.isDirectory(),ErrorCode.PARAMS_ERROR,"项目路径不是目录");
@@ -0,0 +1,72 @@
+package com.xuenai.intelligent.ai.codec;
+
+import cn.hutool.json.JSONUtil;
+import com.xuenai.aicodegenerate.model.enums.StreamMessageTypeEnum;
+import com.xuenai.intelligent.ai.mode.message.AiResponseMessage;
+import com.xuenai.intelligent.ai.mode.message.StreamMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式消息编码基准测试
+ * 对比单个 AI 分片从生成到 SSE 出口的两种处理方式：
+ * 改造前 Facade 序列化为 JSON，处理器按基类与具体类型各反序列化一次，Controller 再包装为 {"d": chunk} 序列化；
+ * 改造后只在出口处由 {@link StreamMessageCodec} 编码一次。
+ * 运行方式：test-compile 后执行 main 方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamMessageCodecBenchmark {
+
+    /**
+     * 分片类型：text 为普通回复文本，code 为含引号、换行与缩进的代码
+     */
+    @Param({"text", "code"})
+    private String chunkType;
+
+    private String chunk;
+
+    @Setup
+    public void setup() {
+        chunk = "text".equals(chunkType)
+                ? "好的，我将为你生成一个个人博客网站，包含首页、文章列表和关于页面。"
+                : "    <div class=\"card\" data-id=\"post-1\">\n\t\t<h2 class=\"card-title\">{{ post.title }}</h2>\n\t\t<p>\"引用\" \\ 结尾</p>\n    </div>\n";
+    }
+
+    @Benchmark
+    public String jsonRoundTrip() {
+        String json = JSONUtil.toJsonStr(new AiResponseMessage(chunk));
+        StreamMessage streamMessage = JSONUtil.toBean(json, StreamMessage.class);
+        StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        AiResponseMessage aiMessage = JSONUtil.toBean(json, AiResponseMessage.class);
+        return JSONUtil.toJsonStr(Map.of("d", aiMessage.getData()));
+    }
+
+    @Benchmark
+    public String codecEncode() {
+        return StreamMessageCodec.encode(new AiResponseMessage(chunk));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StreamMessageCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,134 @@
+package com.xuenai.intelligent.custom;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 对话记忆编解码基准测试
+ * 负载为 benchmark/chat-memory-window.json：系统提示词 + 两轮 HTML 生成对话（约 134 KB），与 STRING 模式写入 Redis 的 JSON 一致。
+ * 另外对比了一个二进制候选格式（类型字节 + 长度前缀的 UTF-8 文本），用于评估是否值得引入二进制编码：
+ * 负载主体是生成的源码文本，JSON 结构开销很小，压缩后两者体积几乎相同。
+ * 运行方式：test-compile 后执行 main 方法，setup 时会打印各格式的字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMemoryCodecBenchmark {
+
+    private static final String FIXTURE = "benchmark/chat-memory-window.json";
+
+    private final ChatMemoryCodec deflateCodec = new ChatMemoryCodec(ChatMemoryCodec.Compression.DEFLATE, 1024);
+
+    private String json;
+
+    private List<ChatMessage> messages;
+
+    private byte[] deflated;
+
+    @Setup
+    public void setup() {
+        json = ResourceUtil.readUtf8Str(FIXTURE);
+        messages = ChatMessageDeserializer.messagesFromJson(json);
+        deflated = deflateCodec.encode(json);
+        byte[] binary = binaryEncode(messages);
+        System.out.printf("%n对话记忆字节数: json=%d, json+deflate=%d, binary=%d, binary+deflate=%d%n",
+                json.getBytes(StandardCharsets.UTF_8).length, deflated.length, binary.length, deflatedLength(binary));
+    }
+
+    @Benchmark
+    public byte[] plainEncode() {
+        return ChatMemoryCodec.PLAIN.encode(json);
+    }
+
+    @Benchmark
+    public byte[] deflateEncode() {
+        return deflateCodec.encode(json);
+    }
+
+    @Benchmark
+    public String deflateDecode() {
+        return ChatMemoryCodec.decode(deflated);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binaryEncode(messages);
+    }
+
+    /**
+     * 二进制候选格式，只写入消息类型与文本，不含工具调用，体积是该方案的下限
+     */
+    private static byte[] binaryEncode(List<ChatMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 17);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(messages.size());
+            for (ChatMessage message : messages) {
+                out.writeByte(message.type().ordinal());
+                String text = switch (message) {
+                    case SystemMessage systemMessage -> systemMessage.text();
+                    case UserMessage userMessage -> userMessage.singleText();
+                    case AiMessage aiMessage -> aiMessage.text() == null ? "" : aiMessage.text();
+                    default -> "";
+                };
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 与 {@link ChatMemoryCodec} 相同参数（最快速度级别、无 zlib 头）压缩后的字节数
+     */
+    private static int deflatedLength(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            int length = 0;
+            while (!deflater.finished()) {
+                length += deflater.deflate(buffer);
+            }
+            return length;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ChatMemoryCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}